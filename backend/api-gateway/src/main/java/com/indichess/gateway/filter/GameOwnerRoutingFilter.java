@@ -0,0 +1,79 @@
+package com.indichess.gateway.filter;
+
+import com.indichess.gateway.routing.MatchServiceMembership;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Sends match-service traffic to the node that owns the game, so a game's
+ * in-memory state lives on exactly one node. The game id comes from the path
+ * ({@code /game/{id}/...}, {@code /game/move/{id}}) or, for WebSocket sessions,
+ * from the {@code gameId} query parameter. Requests without a game (matchmaking,
+ * lobby sockets) all go to the owner of a fixed key, so there is one matchmaking
+ * queue across the cluster.
+ */
+@Component
+@RequiredArgsConstructor
+public class GameOwnerRoutingFilter implements GlobalFilter, Ordered {
+    private static final Set<String> MATCH_SERVICE_ROUTES = Set.of("game-route", "matchmaking-route", "websocket-route");
+    private static final Pattern GAME_PATH = Pattern.compile("^/game/(?:move/)?(\\d+)(?:/.*)?$");
+    private static final long MATCHMAKING_KEY = 0L;
+
+    private final MatchServiceMembership membership;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        URI requestUrl = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        if (route == null || requestUrl == null || !MATCH_SERVICE_ROUTES.contains(route.getId())) {
+            return chain.filter(exchange);
+        }
+
+        String owner = membership.ownerOf(routingKey(exchange));
+        if (owner != null) {
+            URI ownerUri = URI.create(owner);
+            URI routed = UriComponentsBuilder.fromUri(requestUrl)
+                    .scheme(ownerUri.getScheme())
+                    .host(ownerUri.getHost())
+                    .port(ownerUri.getPort())
+                    .build(true)
+                    .toUri();
+            exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, routed);
+        }
+        return chain.filter(exchange);
+    }
+
+    private long routingKey(ServerWebExchange exchange) {
+        Matcher matcher = GAME_PATH.matcher(exchange.getRequest().getPath().value());
+        String gameId = matcher.matches()
+                ? matcher.group(1)
+                : exchange.getRequest().getQueryParams().getFirst("gameId");
+        try {
+            return gameId != null ? Long.parseLong(gameId) : MATCHMAKING_KEY;
+        } catch (NumberFormatException e) {
+            return MATCHMAKING_KEY;
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // After the route URL is resolved, before the HTTP/WebSocket routing filters use it
+        return RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1;
+    }
+}
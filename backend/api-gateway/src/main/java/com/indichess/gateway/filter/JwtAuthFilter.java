@@ -1,10 +1,7 @@
 package com.indichess.gateway.filter;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
+import com.indichess.gateway.security.TokenVerifier;
+import lombok.RequiredArgsConstructor;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
@@ -14,19 +11,18 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.security.Key;
 import java.util.List;
 
 @Component
+@RequiredArgsConstructor
 public class JwtAuthFilter implements GlobalFilter, Ordered {
-
-    @Value("${jwt.secret}")
-    private String secretKey;
+    private final TokenVerifier tokenVerifier;
 
     // Open routes that don't require authentication
     private static final List<String> openRoutes = List.of(
             "/auth/login",
             "/auth/register",
+            "/auth/availability",
             "/actuator/health",
             "/actuator/info",
             "/home",
@@ -58,8 +54,7 @@ public class JwtAuthFilter implements GlobalFilter, Ordered {
 
         try {
             // Validate token and extract username
-            Claims claims = extractAllClaims(token);
-            String username = claims.getSubject();
+            String username = tokenVerifier.verify(token).subject();
 
             // Add username to request header for downstream services
             ServerHttpRequest modifiedRequest = exchange.getRequest().mutate()
@@ -78,19 +73,6 @@ public class JwtAuthFilter implements GlobalFilter, Ordered {
         return openRoutes.stream().anyMatch(path::startsWith);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
     @Override
     public int getOrder() {
         return -1; // Run before other filters
@@ -0,0 +1,60 @@
+package com.indichess.gateway.routing;
+
+import com.indichess.common.routing.ConsistentHashRing;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Tracks which configured match-service nodes are up and keeps the hash ring
+ * that assigns games to them. Nodes are health-checked periodically; a node
+ * that stops answering leaves the ring and its games move to the others.
+ */
+@Slf4j
+@Component
+public class MatchServiceMembership {
+    private final List<String> nodes;
+    private final Duration timeout;
+    private final WebClient webClient = WebClient.create();
+
+    private volatile ConsistentHashRing ring;
+
+    public MatchServiceMembership(@Value("${match-service.nodes}") List<String> nodes,
+            @Value("${match-service.health-timeout-ms:1000}") long timeoutMillis) {
+        this.nodes = List.copyOf(nodes);
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.ring = ConsistentHashRing.of(this.nodes);
+    }
+
+    public String ownerOf(long key) {
+        return ring.ownerOf(key);
+    }
+
+    @Scheduled(fixedDelayString = "${match-service.health-interval-ms:2000}")
+    public void checkHealth() {
+        List<String> healthy = Flux.fromIterable(nodes)
+                .flatMap(node -> webClient.get()
+                        .uri(node + "/actuator/health")
+                        .retrieve()
+                        .toBodilessEntity()
+                        .timeout(timeout)
+                        .map(response -> node)
+                        .onErrorResume(e -> Mono.empty()))
+                .collectList()
+                .block();
+
+        // With no node answering, keep routing to all of them rather than to none
+        ConsistentHashRing next = ConsistentHashRing.of(healthy == null || healthy.isEmpty() ? nodes : healthy);
+        if (!next.getNodes().equals(ring.getNodes())) {
+            log.info("Match-service membership changed: {} -> {}", ring.getNodes(), next.getNodes());
+            ring = next;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.indichess.gateway.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies JWTs with a key and parser built once at startup, and remembers
+ * tokens that verified, keyed by their SHA-256 digest, until they expire. A
+ * client sending the same token again is authenticated without parsing or
+ * checking the signature.
+ */
+@Component
+public class TokenVerifier {
+    private final JwtParser jwtParser;
+    private final long maxCacheMillis;
+    private final Cache<String, VerifiedToken> verified;
+
+    public TokenVerifier(@Value("${jwt.secret}") String secretKey,
+            @Value("${jwt.cache.max-size:100000}") long maxSize,
+            @Value("${jwt.cache.max-ttl-seconds:3600}") long maxTtlSeconds,
+            MeterRegistry meterRegistry) {
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey)))
+                .build();
+        this.maxCacheMillis = TimeUnit.SECONDS.toMillis(maxTtlSeconds);
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "gateway.verifiedTokens");
+    }
+
+    /**
+     * Returns the verified token, or throws {@link JwtException} if it is
+     * malformed, badly signed or expired.
+     */
+    public VerifiedToken verify(String token) {
+        String digest = digest(token);
+        VerifiedToken cached = verified.getIfPresent(digest);
+        long now = System.currentTimeMillis();
+        if (cached != null && cached.isValidAt(now)) {
+            return cached;
+        }
+
+        // The parser rejects expired tokens, so anything past this point is valid now
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        VerifiedToken result = new VerifiedToken(claims.getSubject(),
+                expiration != null ? expiration.getTime() : now + maxCacheMillis);
+        verified.put(digest, result);
+        return result;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record VerifiedToken(String subject, long expiresAtMillis) {
+        boolean isValidAt(long now) {
+            return now < expiresAtMillis;
+        }
+    }
+
+    // Entries live until the token expires, but never longer than the configured maximum
+    private class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+            long millis = Math.min(token.expiresAtMillis() - System.currentTimeMillis(), maxCacheMillis);
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
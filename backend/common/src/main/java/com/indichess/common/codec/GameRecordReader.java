@@ -0,0 +1,84 @@
+package com.indichess.common.codec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a record produced by {@link GameRecordWriter} without decoding it up
+ * front: only the header is parsed, moves are fixed-width and read on demand,
+ * and clock deltas are decoded the first time they are asked for.
+ */
+public class GameRecordReader {
+    private final byte[] data;
+    private final String startFen;
+    private final int plyCount;
+    private final int movesOffset;
+    private long[] clockDeltas;
+
+    public GameRecordReader(byte[] data) {
+        this.data = data;
+        if (data.length < 3 || data[0] != GameRecordWriter.VERSION) {
+            throw new IllegalArgumentException("Unsupported game record");
+        }
+
+        int[] pos = {2};
+        if ((data[1] & GameRecordWriter.FLAG_CUSTOM_START) != 0) {
+            int length = (int) readVarint(pos);
+            startFen = new String(data, pos[0], length, StandardCharsets.UTF_8);
+            pos[0] += length;
+        } else {
+            startFen = null;
+        }
+        plyCount = (int) readVarint(pos);
+        movesOffset = pos[0];
+        if (movesOffset + plyCount * 2 > data.length) {
+            throw new IllegalArgumentException("Truncated game record");
+        }
+    }
+
+    /**
+     * @return the start position, or null for the standard initial position
+     */
+    public String getStartFen() {
+        return startFen;
+    }
+
+    public int getPlyCount() {
+        return plyCount;
+    }
+
+    public short moveCodeAt(int ply) {
+        if (ply < 0 || ply >= plyCount) {
+            throw new IndexOutOfBoundsException("Ply " + ply + " of " + plyCount);
+        }
+        int offset = movesOffset + ply * 2;
+        return (short) ((data[offset] & 0xFF) << 8 | data[offset + 1] & 0xFF);
+    }
+
+    public String uciAt(int ply) {
+        return MoveCodec.decode(moveCodeAt(ply));
+    }
+
+    public long clockDeltaAt(int ply) {
+        if (clockDeltas == null) {
+            long[] deltas = new long[plyCount];
+            int[] pos = {movesOffset + plyCount * 2};
+            for (int i = 0; i < plyCount; i++) {
+                deltas[i] = readVarint(pos);
+            }
+            clockDeltas = deltas;
+        }
+        return clockDeltas[ply];
+    }
+
+    private long readVarint(int[] pos) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = data[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in game record");
+    }
+}
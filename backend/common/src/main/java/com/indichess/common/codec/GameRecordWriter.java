@@ -0,0 +1,80 @@
+package com.indichess.common.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Builds a compact game record one ply at a time.
+ *
+ * <pre>
+ * byte    version
+ * byte    flags (bit 0: custom start position follows)
+ * [varint length + UTF-8 start FEN]
+ * varint  ply count
+ * short[] move codes, big-endian (see {@link MoveCodec})
+ * varint[] milliseconds spent on each ply
+ * </pre>
+ *
+ * A standard game costs about 3-4 bytes per ply, against a hundred or more for a
+ * moves row with notation and FEN.
+ */
+public class GameRecordWriter {
+    static final int VERSION = 1;
+    static final int FLAG_CUSTOM_START = 1;
+
+    private final String startFen;
+    private short[] moves = new short[64];
+    private long[] clockDeltas = new long[64];
+    private int plyCount;
+
+    /**
+     * @param startFen start position, or null for the standard initial position
+     */
+    public GameRecordWriter(String startFen) {
+        this.startFen = startFen;
+    }
+
+    public GameRecordWriter append(String uci, long clockDeltaMillis) {
+        if (plyCount == moves.length) {
+            moves = Arrays.copyOf(moves, plyCount * 2);
+            clockDeltas = Arrays.copyOf(clockDeltas, plyCount * 2);
+        }
+        moves[plyCount] = MoveCodec.encode(uci);
+        clockDeltas[plyCount] = Math.max(0, clockDeltaMillis);
+        plyCount++;
+        return this;
+    }
+
+    public int getPlyCount() {
+        return plyCount;
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + plyCount * 4);
+        out.write(VERSION);
+        out.write(startFen != null ? FLAG_CUSTOM_START : 0);
+        if (startFen != null) {
+            byte[] fen = startFen.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, fen.length);
+            out.write(fen, 0, fen.length);
+        }
+        writeVarint(out, plyCount);
+        for (int i = 0; i < plyCount; i++) {
+            out.write(moves[i] >>> 8 & 0xFF);
+            out.write(moves[i] & 0xFF);
+        }
+        for (int i = 0; i < plyCount; i++) {
+            writeVarint(out, clockDeltas[i]);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
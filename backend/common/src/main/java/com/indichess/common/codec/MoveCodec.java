@@ -0,0 +1,51 @@
+package com.indichess.common.codec;
+
+/**
+ * Packs a UCI move into 16 bits: from square (6 bits), to square (6 bits) and
+ * promotion piece (3 bits). Squares are numbered a1 = 0 .. h8 = 63.
+ */
+public final class MoveCodec {
+    private static final String PROMOTIONS = " nbrq";
+
+    private MoveCodec() {
+    }
+
+    public static short encode(String uci) {
+        if (uci == null || uci.length() < 4 || uci.length() > 5) {
+            throw new IllegalArgumentException("Not a UCI move: " + uci);
+        }
+        int from = square(uci.charAt(0), uci.charAt(1));
+        int to = square(uci.charAt(2), uci.charAt(3));
+        int promotion = 0;
+        if (uci.length() == 5) {
+            promotion = PROMOTIONS.indexOf(Character.toLowerCase(uci.charAt(4)));
+            if (promotion <= 0) {
+                throw new IllegalArgumentException("Not a UCI move: " + uci);
+            }
+        }
+        return (short) (from | to << 6 | promotion << 12);
+    }
+
+    public static String decode(short code) {
+        int from = code & 0x3F;
+        int to = code >>> 6 & 0x3F;
+        int promotion = code >>> 12 & 0x7;
+
+        StringBuilder uci = new StringBuilder(5)
+                .append((char) ('a' + (from & 7))).append((char) ('1' + (from >>> 3)))
+                .append((char) ('a' + (to & 7))).append((char) ('1' + (to >>> 3)));
+        if (promotion != 0) {
+            uci.append(PROMOTIONS.charAt(promotion));
+        }
+        return uci.toString();
+    }
+
+    private static int square(char file, char rank) {
+        int f = Character.toLowerCase(file) - 'a';
+        int r = rank - '1';
+        if (f < 0 || f > 7 || r < 0 || r > 7) {
+            throw new IllegalArgumentException("Not a square: " + file + rank);
+        }
+        return r << 3 | f;
+    }
+}
@@ -17,6 +17,7 @@ public class GameDTO {
     private String blackPlayerName;
     private String fen;
     private String pgn;
+    private Integer plyCount;
     private String status;
     private String currentTurn;
     private String timeControl;
@@ -0,0 +1,31 @@
+package com.indichess.common.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Incremental game update pushed on /topic/game/{id}. Its size does not depend on
+ * the length of the game. {@code seq} is the game's ply count after the update:
+ * a move advances it by one, a status-only update (resignation, time loss)
+ * repeats it. A client that sees a gap reloads the full game.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GameDeltaDTO {
+    private String type; // "DELTA"
+    private Long gameId;
+    private Integer seq;
+    private String lastMove; // UCI, absent for status-only updates
+    private String san;
+    private String currentTurn;
+    private Long whiteTimeRemaining;
+    private Long blackTimeRemaining;
+    private String status;
+    private String statusMessage;
+}
@@ -0,0 +1,37 @@
+package com.indichess.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One page of a player's games, newest first. {@code nextCursor} is passed back
+ * to fetch the following page and is null on the last one.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameHistoryDTO {
+    private List<Entry> games;
+    private String nextCursor;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private Long gameId;
+        private String color; // "WHITE" or "BLACK"
+        private String opponentName;
+        private String status;
+        private String result; // "1-0", "0-1", "1/2-1/2", null while unfinished
+        private String outcome; // "WIN", "LOSS" or "DRAW" from the player's side
+        private String timeControl;
+        private LocalDateTime playedAt;
+    }
+}
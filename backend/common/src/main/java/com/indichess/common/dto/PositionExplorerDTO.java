@@ -0,0 +1,39 @@
+package com.indichess.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * How often a position was reached in played games, with the results, and the
+ * moves played from it, most played first. {@code complete} is false while the
+ * index is still being built from stored games.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PositionExplorerDTO {
+    private String fen;
+    private int games;
+    private int whiteWins;
+    private int draws;
+    private int blackWins;
+    private List<MoveStats> moves;
+    private boolean complete;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MoveStats {
+        private String uci;
+        private int games;
+        private int whiteWins;
+        private int draws;
+        private int blackWins;
+    }
+}
@@ -0,0 +1,26 @@
+package com.indichess.common.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBatchRequest {
+    public static final int MAX_SIZE = 500;
+
+    @Size(max = MAX_SIZE, message = "At most " + MAX_SIZE + " ids per batch")
+    @Builder.Default
+    private List<Long> ids = new ArrayList<>();
+
+    @Size(max = MAX_SIZE, message = "At most " + MAX_SIZE + " usernames per batch")
+    @Builder.Default
+    private List<String> usernames = new ArrayList<>();
+}
@@ -0,0 +1,101 @@
+package com.indichess.common.routing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring mapping numeric keys (game ids) to nodes. Each
+ * node is placed at a number of virtual points, so keys spread evenly and
+ * adding or removing a node only moves the keys next to its points. The hash is
+ * fixed, so every service building a ring from the same node list agrees on
+ * every owner.
+ */
+public final class ConsistentHashRing {
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    private ConsistentHashRing(List<String> nodes, int virtualNodes) {
+        this.nodes = nodes;
+        int size = nodes.size() * virtualNodes;
+        long[] hashes = new long[size];
+        String[] byHash = new String[size];
+        Integer[] order = new Integer[size];
+
+        int i = 0;
+        for (String node : nodes) {
+            for (int v = 0; v < virtualNodes; v++) {
+                hashes[i] = mix(fnv1a(node + "#" + v));
+                byHash[i] = node;
+                order[i] = i;
+                i++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+
+        this.points = new long[size];
+        this.owners = new String[size];
+        for (int p = 0; p < size; p++) {
+            points[p] = hashes[order[p]];
+            owners[p] = byHash[order[p]];
+        }
+    }
+
+    /**
+     * Builds a ring over the given nodes; order and duplicates don't matter.
+     */
+    public static ConsistentHashRing of(Iterable<String> nodes) {
+        return of(nodes, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public static ConsistentHashRing of(Iterable<String> nodes, int virtualNodes) {
+        TreeSet<String> unique = new TreeSet<>();
+        nodes.forEach(unique::add);
+        return new ConsistentHashRing(List.copyOf(unique), virtualNodes);
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    /**
+     * Returns the node owning the key, or null if the ring has no nodes.
+     */
+    public String ownerOf(long key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, mix(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    private static long fnv1a(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // MurmurHash3 finalizer; spreads sequential game ids over the whole ring
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb93fe1a85ec3L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
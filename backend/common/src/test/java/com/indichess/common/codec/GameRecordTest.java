@@ -0,0 +1,113 @@
+package com.indichess.common.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GameRecordTest {
+    private static final String[] OPENING = { "e2e4", "e7e5", "g1f3", "b8c6", "f1b5", "a7a6" };
+
+    @Test
+    void standardGameRoundTrips() {
+        GameRecordWriter writer = new GameRecordWriter(null);
+        for (int ply = 0; ply < OPENING.length; ply++) {
+            writer.append(OPENING[ply], 1000L * ply);
+        }
+
+        GameRecordReader reader = new GameRecordReader(writer.toByteArray());
+
+        assertNull(reader.getStartFen());
+        assertEquals(OPENING.length, reader.getPlyCount());
+        for (int ply = 0; ply < OPENING.length; ply++) {
+            assertEquals(OPENING[ply], reader.uciAt(ply));
+            assertEquals(1000L * ply, reader.clockDeltaAt(ply));
+        }
+    }
+
+    @Test
+    void customStartPositionAndPromotionRoundTrip() {
+        String fen = "8/P7/8/8/8/8/7p/K6k w - - 0 1";
+        byte[] record = new GameRecordWriter(fen)
+                .append("a7a8q", 5)
+                .append("h2h1n", 7)
+                .toByteArray();
+
+        GameRecordReader reader = new GameRecordReader(record);
+
+        assertEquals(fen, reader.getStartFen());
+        assertEquals(2, reader.getPlyCount());
+        assertEquals("a7a8q", reader.uciAt(0));
+        assertEquals("h2h1n", reader.uciAt(1));
+        assertEquals(5, reader.clockDeltaAt(0));
+        assertEquals(7, reader.clockDeltaAt(1));
+    }
+
+    @Test
+    void clockDeltasKeepEveryVarintWidth() {
+        long[] deltas = { 0, 1, 127, 128, 16_383, 16_384, 3_600_000, 1L << 40, Long.MAX_VALUE };
+        GameRecordWriter writer = new GameRecordWriter(null);
+        for (long delta : deltas) {
+            writer.append("e2e4", delta);
+        }
+
+        GameRecordReader reader = new GameRecordReader(writer.toByteArray());
+
+        for (int ply = 0; ply < deltas.length; ply++) {
+            assertEquals(deltas[ply], reader.clockDeltaAt(ply));
+        }
+    }
+
+    @Test
+    void negativeClockDeltaIsStoredAsZero() {
+        byte[] record = new GameRecordWriter(null).append("e2e4", -250).toByteArray();
+
+        assertEquals(0, new GameRecordReader(record).clockDeltaAt(0));
+    }
+
+    @Test
+    void longGameGrowsPastInitialCapacity() {
+        GameRecordWriter writer = new GameRecordWriter(null);
+        for (int ply = 0; ply < 300; ply++) {
+            writer.append(ply % 2 == 0 ? "g1f3" : "f3g1", ply);
+        }
+
+        GameRecordReader reader = new GameRecordReader(writer.toByteArray());
+
+        assertEquals(300, reader.getPlyCount());
+        assertEquals("g1f3", reader.uciAt(298));
+        assertEquals("f3g1", reader.uciAt(299));
+        assertEquals(299, reader.clockDeltaAt(299));
+    }
+
+    @Test
+    void emptyGameRoundTrips() {
+        GameRecordReader reader = new GameRecordReader(new GameRecordWriter(null).toByteArray());
+
+        assertEquals(0, reader.getPlyCount());
+        assertThrows(IndexOutOfBoundsException.class, () -> reader.uciAt(0));
+    }
+
+    @Test
+    void plyOutsideTheGameIsRejected() {
+        GameRecordReader reader = new GameRecordReader(new GameRecordWriter(null).append("e2e4", 0).toByteArray());
+
+        assertThrows(IndexOutOfBoundsException.class, () -> reader.moveCodeAt(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> reader.moveCodeAt(1));
+    }
+
+    @Test
+    void unknownVersionAndTruncatedRecordsAreRejected() {
+        byte[] record = new GameRecordWriter(null).append("e2e4", 0).append("e7e5", 0).toByteArray();
+
+        byte[] otherVersion = record.clone();
+        otherVersion[0] = 2;
+        assertThrows(IllegalArgumentException.class, () -> new GameRecordReader(otherVersion));
+        // Cut inside the move codes
+        assertThrows(IllegalArgumentException.class, () -> new GameRecordReader(Arrays.copyOf(record, 4)));
+        assertThrows(IllegalArgumentException.class, () -> new GameRecordReader(new byte[0]));
+    }
+}
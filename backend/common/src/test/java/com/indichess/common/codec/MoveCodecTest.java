@@ -0,0 +1,51 @@
+package com.indichess.common.codec;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoveCodecTest {
+
+    @Test
+    void everyFromToPairRoundTrips() {
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                String uci = square(from) + square(to);
+                assertEquals(uci, MoveCodec.decode(MoveCodec.encode(uci)));
+            }
+        }
+    }
+
+    @Test
+    void promotionsRoundTrip() {
+        for (char piece : new char[] { 'n', 'b', 'r', 'q' }) {
+            assertEquals("e7e8" + piece, MoveCodec.decode(MoveCodec.encode("e7e8" + piece)));
+            assertEquals("b2a1" + piece, MoveCodec.decode(MoveCodec.encode("b2a1" + piece)));
+        }
+    }
+
+    @Test
+    void upperCaseIsAccepted() {
+        assertEquals("e7e8q", MoveCodec.decode(MoveCodec.encode("E7E8Q")));
+    }
+
+    @Test
+    void distinctMovesGetDistinctCodes() {
+        assertNotEquals(MoveCodec.encode("a1a2"), MoveCodec.encode("a2a1"));
+        assertNotEquals(MoveCodec.encode("a7a8q"), MoveCodec.encode("a7a8n"));
+        assertNotEquals(MoveCodec.encode("a7a8"), MoveCodec.encode("a7a8q"));
+    }
+
+    @Test
+    void malformedMovesAreRejected() {
+        for (String uci : new String[] { null, "", "e2e", "e2e4qq", "i2e4", "e0e4", "e2e9", "e7e8k", "e7e8 " }) {
+            assertThrows(IllegalArgumentException.class, () -> MoveCodec.encode(uci), String.valueOf(uci));
+        }
+    }
+
+    private static String square(int index) {
+        return "" + (char) ('a' + index % 8) + (char) ('1' + index / 8);
+    }
+}
@@ -0,0 +1,89 @@
+package com.indichess.common.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+    private static final int KEYS = 30_000;
+
+    @Test
+    void emptyRingHasNoOwner() {
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of());
+
+        assertTrue(ring.isEmpty());
+        assertNull(ring.ownerOf(42));
+    }
+
+    @Test
+    void singleNodeOwnsEveryKey() {
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of("node-a:8082"));
+
+        for (long key = 0; key < 1000; key++) {
+            assertEquals("node-a:8082", ring.ownerOf(key));
+        }
+    }
+
+    @Test
+    void nodeOrderAndDuplicatesDoNotChangeOwners() {
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of("a:8082", "b:8082", "c:8082"));
+        ConsistentHashRing shuffled = ConsistentHashRing.of(List.of("c:8082", "a:8082", "b:8082", "a:8082"));
+
+        assertEquals(ring.getNodes(), shuffled.getNodes());
+        for (long key = 0; key < KEYS; key++) {
+            assertEquals(ring.ownerOf(key), shuffled.ownerOf(key));
+        }
+    }
+
+    @Test
+    void sequentialKeysSpreadOverAllNodes() {
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of("a:8082", "b:8082", "c:8082"));
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (long key = 1; key <= KEYS; key++) {
+            counts.merge(ring.ownerOf(key), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        for (int count : counts.values()) {
+            // A third each, give or take the unevenness of 128 points per node
+            assertTrue(count > KEYS / 5 && count < KEYS / 2, counts.toString());
+        }
+    }
+
+    @Test
+    void addingANodeOnlyMovesKeysToIt() {
+        ConsistentHashRing before = ConsistentHashRing.of(List.of("a:8082", "b:8082", "c:8082"));
+        ConsistentHashRing after = ConsistentHashRing.of(List.of("a:8082", "b:8082", "c:8082", "d:8082"));
+
+        int moved = 0;
+        for (long key = 1; key <= KEYS; key++) {
+            String owner = after.ownerOf(key);
+            if (!owner.equals(before.ownerOf(key))) {
+                assertEquals("d:8082", owner);
+                moved++;
+            }
+        }
+        // About a quarter of the keys
+        assertTrue(moved > KEYS / 8 && moved < KEYS * 3 / 8, "moved " + moved);
+    }
+
+    @Test
+    void removingANodeOnlyMovesItsKeys() {
+        ConsistentHashRing before = ConsistentHashRing.of(List.of("a:8082", "b:8082", "c:8082"));
+        ConsistentHashRing after = ConsistentHashRing.of(List.of("a:8082", "c:8082"));
+
+        for (long key = 1; key <= KEYS; key++) {
+            String owner = before.ownerOf(key);
+            if (!owner.equals("b:8082")) {
+                assertEquals(owner, after.ownerOf(key));
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# Runs thread-modes.js against the docker-compose stack once with platform threads
+# and once with virtual threads, and prints throughput and p99 latency per mode.
+# Needs docker-compose, k6 and jq, and the service jars built (mvn package).
+set -euo pipefail
+
+cd "$(dirname "$0")"
+BASE_URL=${BASE_URL:-http://localhost:8080}
+VUS=${VUS:-10000}
+RESULTS=results
+mkdir -p "$RESULTS"
+
+wait_for_gateway() {
+    for _ in $(seq 1 60); do
+        if curl -fs "$BASE_URL/actuator/health" > /dev/null; then
+            return 0
+        fi
+        sleep 5
+    done
+    echo "Gateway did not become healthy" >&2
+    exit 1
+}
+
+for mode in platform virtual; do
+    enabled=false
+    if [ "$mode" = virtual ]; then
+        enabled=true
+    fi
+    echo "== $mode threads =="
+    VIRTUAL_THREADS_ENABLED=$enabled docker-compose -f ../docker-compose.yml up -d --build --force-recreate \
+        user-service match-service api-gateway
+    wait_for_gateway
+    k6 run -e BASE_URL="$BASE_URL" -e VUS="$VUS" --summary-export "$RESULTS/$mode.json" thread-modes.js
+done
+
+printf '\n%-10s %12s %12s %10s\n' mode 'req/s' 'p99 (ms)' failed
+for mode in platform virtual; do
+    jq -r --arg mode "$mode" '[$mode,
+            (.metrics.http_reqs.rate | floor),
+            (.metrics.http_req_duration["p(99)"] | floor),
+            ((.metrics.http_req_failed.value * 10000 | floor) / 100 | tostring + "%")] | @tsv' \
+        "$RESULTS/$mode.json" | awk -F'\t' '{ printf "%-10s %12s %12s %10s\n", $1, $2, $3, $4 }'
+done
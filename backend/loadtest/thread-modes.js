@@ -0,0 +1,67 @@
+// Load test for comparing platform-thread and virtual-thread execution modes.
+// Run through run-thread-modes.sh, or directly:
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=10000 thread-modes.js
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const VUS = parseInt(__ENV.VUS || '10000', 10);
+const USERS = parseInt(__ENV.USERS || '500', 10);
+const JSON_HEADERS = { 'Content-Type': 'application/json' };
+
+export const options = {
+    setupTimeout: '10m',
+    scenarios: {
+        burst: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '1m', target: VUS },
+                { duration: __ENV.HOLD || '3m', target: VUS },
+                { duration: '30s', target: 0 },
+            ],
+            gracefulRampDown: '30s',
+        },
+    },
+    summaryTrendStats: ['avg', 'med', 'p(90)', 'p(95)', 'p(99)', 'max'],
+};
+
+// Shared accounts; logging in once per account keeps BCrypt out of the measured phase
+export function setup() {
+    const tokens = [];
+    for (let i = 0; i < USERS; i++) {
+        const credentials = { username: `loadtest${i}`, password: 'loadtest-password' };
+        http.post(`${BASE_URL}/auth/register`,
+            JSON.stringify({ ...credentials, email: `loadtest${i}@example.com` }),
+            { headers: JSON_HEADERS });
+        const login = http.post(`${BASE_URL}/auth/login`, JSON.stringify(credentials), { headers: JSON_HEADERS });
+        if (login.status === 200) {
+            tokens.push(login.json('token'));
+        }
+    }
+    if (tokens.length === 0) {
+        throw new Error('No load test user could log in');
+    }
+    return { tokens };
+}
+
+export default function (data) {
+    const token = data.tokens[(__VU - 1) % data.tokens.length];
+    const headers = { ...JSON_HEADERS, Authorization: `Bearer ${token}` };
+
+    // user-service: JPA lookup
+    const me = http.get(`${BASE_URL}/users/me`, { headers, tags: { name: 'users-me' } });
+    check(me, { 'users/me 200': (r) => r.status === 200 });
+
+    // match-service: blocking user lookup, then the matchmaking pools
+    const join = http.post(`${BASE_URL}/matchmaking/queue`, JSON.stringify({ timeControl: 'RAPID' }),
+        { headers, tags: { name: 'queue-join' } });
+    check(join, { 'queue join 200': (r) => r.status === 200 });
+
+    const status = http.get(`${BASE_URL}/matchmaking/queue/status`, { headers, tags: { name: 'queue-status' } });
+    check(status, { 'queue status 200': (r) => r.status === 200 });
+
+    http.del(`${BASE_URL}/matchmaking/queue`, null, { headers, tags: { name: 'queue-leave' } });
+
+    sleep(Math.random());
+}
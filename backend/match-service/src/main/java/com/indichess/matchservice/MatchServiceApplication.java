@@ -2,8 +2,10 @@ package com.indichess.matchservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MatchServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(MatchServiceApplication.class, args);
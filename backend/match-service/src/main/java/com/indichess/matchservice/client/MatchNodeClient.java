@@ -0,0 +1,33 @@
+package com.indichess.matchservice.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+/**
+ * Calls other match-service nodes.
+ */
+@Slf4j
+@Component
+public class MatchNodeClient {
+    private final WebClient webClient = WebClient.create();
+
+    /**
+     * Asks the owning node to take over a game created here, so its clock runs
+     * from the start. If the call fails, the owner still loads the game on first
+     * access.
+     */
+    public void adoptGame(String node, Long gameId) {
+        try {
+            webClient.post()
+                    .uri(node + "/internal/games/{gameId}/adopt", gameId)
+                    .retrieve()
+                    .toBodilessEntity()
+                    .block(Duration.ofSeconds(2));
+        } catch (Exception e) {
+            log.warn("Node {} did not adopt game {}", node, gameId, e);
+        }
+    }
+}
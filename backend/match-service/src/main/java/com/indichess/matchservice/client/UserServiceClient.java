@@ -1,40 +1,185 @@
 package com.indichess.matchservice.client;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.indichess.common.dto.UserBatchRequest;
 import com.indichess.common.dto.UserDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Looks up users in user-service through a short-lived cache keyed by username
+ * and by id. Concurrent lookups of the same user share one in-flight request,
+ * and a user fetched by either key is cached under both. Failed lookups are not
+ * cached. Hit and miss counts are published as {@code cache.*} metrics.
+ * <p>
+ * The bulk lookups only ask user-service for users missing from the cache, in
+ * batches of at most {@code user-service.batch-size}, sent concurrently.
+ */
+@Slf4j
 @Component
 public class UserServiceClient {
     private final WebClient webClient;
+    private final Duration requestTimeout;
+    private final int batchSize;
+
+    private final AsyncCache<String, UserDTO> byUsername;
+    private final AsyncCache<Long, UserDTO> byId;
 
-    public UserServiceClient(@Value("${user-service.url}") String userServiceUrl) {
+    public UserServiceClient(@Value("${user-service.url}") String userServiceUrl,
+            @Value("${user-service.cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${user-service.cache.max-size:10000}") long maxSize,
+            @Value("${user-service.request-timeout-ms:2000}") long requestTimeoutMs,
+            @Value("${user-service.batch-size:200}") int batchSize,
+            MeterRegistry meterRegistry) {
         this.webClient = WebClient.builder()
                 .baseUrl(userServiceUrl)
                 .build();
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.batchSize = Math.min(batchSize, UserBatchRequest.MAX_SIZE);
+        this.byUsername = newCache(ttlSeconds, maxSize);
+        this.byId = newCache(ttlSeconds, maxSize);
+        CaffeineCacheMetrics.monitor(meterRegistry, byUsername, "users.byUsername");
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "users.byId");
+    }
+
+    private static <K> AsyncCache<K, UserDTO> newCache(long ttlSeconds, long maxSize) {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .buildAsync();
     }
 
+    /**
+     * Returns the user, or null if there is no such user or user-service could
+     * not be reached.
+     */
     public UserDTO getUserByUsername(String username) {
-        try {
-            return webClient.get()
-                    .uri("/users/internal/by-username/{username}", username)
-                    .retrieve()
-                    .bodyToMono(UserDTO.class)
-                    .block();
-        } catch (Exception e) {
-            return null;
-        }
+        return await(byUsername.get(username, (key, executor) ->
+                fetch("/users/internal/by-username/{username}", key)), "username " + username);
     }
 
     public UserDTO getUserById(Long id) {
+        return await(byId.get(id, (key, executor) ->
+                fetch("/users/internal/by-id/{id}", key)), "id " + id);
+    }
+
+    /**
+     * Returns the users found, keyed by id; unknown ids are missing from the map.
+     */
+    public Map<Long, UserDTO> getUsersByIds(Collection<Long> ids) {
+        return getUsers(ids, byId, UserDTO::getId,
+                chunk -> UserBatchRequest.builder().ids(chunk).build());
+    }
+
+    /**
+     * Returns the users found, keyed by username; unknown names are missing from the map.
+     */
+    public Map<String, UserDTO> getUsersByUsernames(Collection<String> usernames) {
+        return getUsers(usernames, byUsername, UserDTO::getUsername,
+                chunk -> UserBatchRequest.builder().usernames(chunk).build());
+    }
+
+    private <K> Map<K, UserDTO> getUsers(Collection<K> keys, AsyncCache<K, UserDTO> cache,
+            Function<UserDTO, K> keyOf, Function<List<K>, UserBatchRequest> requestOf) {
+        Map<K, UserDTO> users = new HashMap<>();
+        List<K> missing = new ArrayList<>();
+        for (K key : new LinkedHashSet<>(keys)) {
+            CompletableFuture<UserDTO> cached = cache.getIfPresent(key);
+            UserDTO user = cached != null && cached.isDone() && !cached.isCompletedExceptionally()
+                    ? cached.join()
+                    : null;
+            if (user != null) {
+                users.put(key, user);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return users;
+        }
+
+        List<List<K>> chunks = new ArrayList<>();
+        for (int from = 0; from < missing.size(); from += batchSize) {
+            chunks.add(missing.subList(from, Math.min(from + batchSize, missing.size())));
+        }
+        // A failed batch leaves its users out rather than failing the whole lookup
+        List<UserDTO> fetched = Flux.fromIterable(chunks)
+                .flatMap(chunk -> fetchBatch(requestOf.apply(chunk))
+                        .onErrorResume(e -> {
+                            log.warn("Could not look up {} users", chunk.size(), e);
+                            return Flux.empty();
+                        }))
+                .collectList()
+                .block();
+        if (fetched != null) {
+            for (UserDTO user : fetched) {
+                cacheUnderBothKeys(user);
+                users.put(keyOf.apply(user), user);
+            }
+        }
+        return users;
+    }
+
+    private Flux<UserDTO> fetchBatch(UserBatchRequest request) {
+        return webClient.post()
+                .uri("/users/internal/batch")
+                .bodyValue(request)
+                .retrieve()
+                .bodyToFlux(UserDTO.class)
+                .timeout(requestTimeout);
+    }
+
+    private CompletableFuture<UserDTO> fetch(String uri, Object key) {
+        return webClient.get()
+                .uri(uri, key)
+                .retrieve()
+                .bodyToMono(UserDTO.class)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                .timeout(requestTimeout)
+                .doOnNext(this::cacheUnderBothKeys)
+                .toFuture();
+    }
+
+    private void cacheUnderBothKeys(UserDTO user) {
+        CompletableFuture<UserDTO> loaded = CompletableFuture.completedFuture(user);
+        if (user.getUsername() != null) {
+            byUsername.asMap().putIfAbsent(user.getUsername(), loaded);
+        }
+        if (user.getId() != null) {
+            byId.asMap().putIfAbsent(user.getId(), loaded);
+        }
+    }
+
+    private UserDTO await(CompletableFuture<UserDTO> user, String key) {
         try {
-            return webClient.get()
-                    .uri("/users/internal/by-id/{id}", id)
-                    .retrieve()
-                    .bodyToMono(UserDTO.class)
-                    .block();
-        } catch (Exception e) {
+            return user.get(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Could not look up user by {}", key, e);
             return null;
         }
     }
@@ -0,0 +1,124 @@
+package com.indichess.matchservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Makes sends to a WebSocket session non-blocking and bounded. Messages are
+ * queued and written by one task at a time on a shared executor, so a slow
+ * client never blocks the thread that publishes. Game updates
+ * ({@code /topic/game/...} MESSAGE frames) are coalesced per destination: while
+ * the client is behind, only the newest update for each game is kept, and the
+ * client catches up through the sequence gap. Anything else is queued in order;
+ * a client that lets that queue overflow is disconnected.
+ */
+@Slf4j
+public class CoalescingWebSocketSessionDecorator extends WebSocketSessionDecorator {
+    private static final String GAME_TOPIC_HEADER = "destination:/topic/game/";
+
+    private final Executor executor;
+    private final int queueLimit;
+
+    // Guarded by this; the game frames keep their first-queued order
+    private final ArrayDeque<WebSocketMessage<?>> queue = new ArrayDeque<>();
+    private final Map<String, WebSocketMessage<?>> latestByDestination = new LinkedHashMap<>();
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    public CoalescingWebSocketSessionDecorator(WebSocketSession delegate, Executor executor, int queueLimit) {
+        super(delegate);
+        this.executor = executor;
+        this.queueLimit = queueLimit;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        String destination = gameDestination(message);
+        boolean overflow;
+        synchronized (this) {
+            if (destination != null) {
+                latestByDestination.put(destination, message);
+                overflow = false;
+            } else {
+                queue.addLast(message);
+                overflow = queue.size() > queueLimit;
+            }
+        }
+        if (overflow) {
+            log.warn("Closing WebSocket session {}: {} messages queued", getId(), queueLimit);
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+            return;
+        }
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            WebSocketMessage<?> next;
+            while ((next = poll()) != null) {
+                if (!getDelegate().isOpen()) {
+                    return;
+                }
+                getDelegate().sendMessage(next);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to send to WebSocket session {}", getId(), e);
+        } finally {
+            draining.set(false);
+        }
+        // A message may have arrived after the last poll but before the flag was cleared
+        if (hasPending()) {
+            scheduleDrain();
+        }
+    }
+
+    private synchronized WebSocketMessage<?> poll() {
+        WebSocketMessage<?> next = queue.pollFirst();
+        if (next == null && !latestByDestination.isEmpty()) {
+            Iterator<WebSocketMessage<?>> it = latestByDestination.values().iterator();
+            next = it.next();
+            it.remove();
+        }
+        return next;
+    }
+
+    private synchronized boolean hasPending() {
+        return !queue.isEmpty() || !latestByDestination.isEmpty();
+    }
+
+    // Destination of a STOMP MESSAGE frame for a game topic, or null for any other frame
+    private static String gameDestination(WebSocketMessage<?> message) {
+        if (!(message instanceof TextMessage text)) {
+            return null;
+        }
+        String frame = text.getPayload();
+        if (!frame.startsWith("MESSAGE\n")) {
+            return null;
+        }
+        int headersEnd = frame.indexOf("\n\n");
+        int start = frame.indexOf(GAME_TOPIC_HEADER);
+        if (start < 0 || (headersEnd >= 0 && start > headersEnd)) {
+            return null;
+        }
+        int end = frame.indexOf('\n', start);
+        return frame.substring(start + "destination:".length(), end < 0 ? frame.length() : end);
+    }
+}
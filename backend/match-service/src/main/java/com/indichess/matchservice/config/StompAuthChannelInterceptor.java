@@ -0,0 +1,67 @@
+package com.indichess.matchservice.config;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Authenticates STOMP sessions from the JWT in the CONNECT frame's
+ * {@code Authorization} header. The gateway lets the WebSocket handshake
+ * through unauthenticated, so this is where a session gets its user, which
+ * {@code /user/queue/...} destinations such as match-found are resolved
+ * against. Sessions without a valid token stay anonymous and can still follow
+ * game topics.
+ */
+@Slf4j
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+    private static final String BEARER = "Bearer ";
+
+    private final JwtParser jwtParser;
+
+    public StompAuthChannelInterceptor(@Value("${jwt.secret}") String secretKey) {
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey)))
+                .build();
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+        String authHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith(BEARER)) {
+            return message;
+        }
+        try {
+            String username = jwtParser.parseClaimsJws(authHeader.substring(BEARER.length())).getBody().getSubject();
+            accessor.setUser(new StompPrincipal(username));
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected STOMP token for session {}", accessor.getSessionId(), e);
+        }
+        return message;
+    }
+
+    private record StompPrincipal(String name) implements Principal {
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -1,19 +1,82 @@
 package com.indichess.matchservice.config;
 
+import com.indichess.matchservice.service.GameBroadcaster;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.lang.NonNull;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+/**
+ * STOMP endpoint and broker. With {@code match.broker.mode=simple} subscriptions
+ * live in this JVM, which is enough for a single node. With {@code relay} they
+ * are forwarded to an external STOMP broker (RabbitMQ with the STOMP plugin),
+ * so a message sent on any node reaches subscribers on every node, including
+ * {@code /user/...} destinations of users connected elsewhere.
+ * <p>
+ * Every session is decorated by {@link GameBroadcaster}, which queues outbound
+ * frames off the sending thread and coalesces game updates for slow clients.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    public enum BrokerMode {
+        SIMPLE, RELAY
+    }
+
+    private final GameBroadcaster gameBroadcaster;
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    private final Environment environment;
+
+    @Value("${match.broker.mode:simple}")
+    private BrokerMode mode;
+
+    @Value("${match.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${match.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${match.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${match.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${match.broker.relay.virtual-host:/}")
+    private String relayVirtualHost;
+
+    @Value("${match.broker.inbound-virtual-threads:1000}")
+    private int inboundVirtualThreads;
+
     @Override
     public void configureMessageBroker(@NonNull MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        if (mode == BrokerMode.RELAY) {
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setVirtualHost(relayVirtualHost)
+                    // Share user sessions between nodes so convertAndSendToUser
+                    // reaches a user connected to another node
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else {
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         config.setApplicationDestinationPrefixes("/app");
     }
 
@@ -24,4 +87,24 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
     }
+
+    @Override
+    public void configureClientInboundChannel(@NonNull ChannelRegistration registration) {
+        registration.interceptors(stompAuthChannelInterceptor);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // Moves block on their game's lane and on JDBC; with virtual threads a
+            // wide pool costs little, so a burst of frames doesn't queue behind a few busy threads
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setVirtualThreads(true);
+            executor.setThreadNamePrefix("stomp-inbound-");
+            registration.taskExecutor(executor)
+                    .corePoolSize(inboundVirtualThreads)
+                    .maxPoolSize(inboundVirtualThreads);
+        }
+    }
+
+    @Override
+    public void configureWebSocketTransport(@NonNull WebSocketTransportRegistration registry) {
+        registry.addDecoratorFactory(gameBroadcaster::decorate);
+    }
 }
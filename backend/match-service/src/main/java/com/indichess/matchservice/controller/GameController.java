@@ -1,48 +1,143 @@
 package com.indichess.matchservice.controller;
 
 import com.indichess.common.dto.GameDTO;
+import com.indichess.common.dto.GameHistoryDTO;
+import com.indichess.common.dto.PositionExplorerDTO;
+import com.indichess.common.dto.UserDTO;
+import com.indichess.common.exception.ResourceNotFoundException;
+import com.indichess.matchservice.client.UserServiceClient;
 import com.indichess.matchservice.model.Game;
 import com.indichess.matchservice.model.TimeControl;
+import com.indichess.matchservice.service.GameHistoryService;
 import com.indichess.matchservice.service.GameService;
+import com.indichess.matchservice.service.LegalMoveTable;
+import com.indichess.matchservice.service.MatchResult;
+import com.indichess.matchservice.service.MatchmakingService;
+import com.indichess.matchservice.service.PositionExplorerService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/game")
 @RequiredArgsConstructor
 public class GameController {
+    private static final int MAX_MATCH_WAIT_SECONDS = 30;
+
     private final GameService gameService;
+    private final GameHistoryService gameHistoryService;
+    private final PositionExplorerService positionExplorerService;
+    private final MatchmakingService matchmakingService;
+    private final UserServiceClient userServiceClient;
 
     @PostMapping
     public ResponseEntity<Map<String, Object>> createOrJoinGame(
             @RequestHeader("X-Username") String username,
             @RequestParam(defaultValue = "RAPID") String timeControl) {
         TimeControl tc = TimeControl.valueOf(timeControl.toUpperCase());
-        Map<String, Object> result = gameService.createOrJoinGame(username, tc);
-        return ResponseEntity.ok(result);
+        UserDTO user = userServiceClient.getUserByUsername(username);
+        if (user == null) {
+            throw new ResourceNotFoundException("User", "username", username);
+        }
+
+        MatchResult match = matchmakingService.join(user, tc);
+        if (match.isMatched()) {
+            return ResponseEntity.ok(Map.of("matchId", match.getGameId(), "message", "Match found"));
+        }
+        return ResponseEntity.ok(Map.of("matchId", -1L,
+                "message", match.isAlreadyQueued() ? "Already in queue" : "Waiting for opponent"));
     }
 
+    /**
+     * Reports whether the player has been matched. With {@code waitSeconds} the
+     * request is parked, without holding a thread, until the player is matched
+     * or leaves the queue, and answers "Still waiting" if that takes longer.
+     */
     @GetMapping("/check-match")
-    public ResponseEntity<Map<String, Object>> checkMatch(@RequestHeader("X-Username") String username) {
-        Map<String, Object> result = gameService.checkForMatch(username);
-        return ResponseEntity.ok(result);
+    public DeferredResult<ResponseEntity<Map<String, Object>>> checkMatch(
+            @RequestHeader("X-Username") String username,
+            @RequestParam(defaultValue = "0") int waitSeconds) {
+        int wait = Math.min(waitSeconds, MAX_MATCH_WAIT_SECONDS);
+        if (wait <= 0) {
+            DeferredResult<ResponseEntity<Map<String, Object>>> result = new DeferredResult<>();
+            result.setResult(matchStatus(username));
+            return result;
+        }
+        DeferredResult<ResponseEntity<Map<String, Object>>> result =
+                new DeferredResult<>(wait * 1000L, () -> matchStatus(username));
+        matchmakingService.awaitMatch(username)
+                .thenRun(() -> result.setResult(matchStatus(username)));
+        return result;
+    }
+
+    private ResponseEntity<Map<String, Object>> matchStatus(String username) {
+        Optional<Long> gameId = matchmakingService.takeMatchedGame(username);
+        if (gameId.isPresent()) {
+            return ResponseEntity.ok(Map.of("matchId", gameId.get(), "message", "Match found"));
+        }
+        if (matchmakingService.isQueued(username)) {
+            return ResponseEntity.ok(Map.of("matchId", -1L, "message", "Still waiting"));
+        }
+        return ResponseEntity.ok(Map.of("matchId", -2L, "message", "Not in queue"));
     }
 
     @PostMapping("/cancel-waiting")
     public ResponseEntity<Map<String, String>> cancelWaiting(@RequestHeader("X-Username") String username) {
-        gameService.cancelWaiting(username);
+        matchmakingService.leave(username);
         return ResponseEntity.ok(Map.of("status", "cancelled"));
     }
 
+    /**
+     * The caller's games, newest first. Pass the returned {@code nextCursor} back
+     * as {@code cursor} for the next page.
+     */
+    @GetMapping("/history")
+    public ResponseEntity<GameHistoryDTO> getHistory(
+            @RequestHeader("X-Username") String username,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        UserDTO user = userServiceClient.getUserByUsername(username);
+        if (user == null) {
+            throw new ResourceNotFoundException("User", "username", username);
+        }
+        return ResponseEntity.ok(gameHistoryService.getHistory(user.getId(), cursor, limit));
+    }
+
+    /**
+     * How often a position (the initial one by default) occurred in played
+     * games, and what was played next with what results.
+     */
+    @GetMapping("/explorer")
+    public ResponseEntity<PositionExplorerDTO> explore(@RequestParam(required = false) String fen) {
+        return ResponseEntity.ok(positionExplorerService.explore(fen));
+    }
+
     @GetMapping("/{gameId}")
     public ResponseEntity<GameDTO> getGame(@PathVariable Long gameId) {
         Game game = gameService.getGame(gameId);
         return ResponseEntity.ok(toDTO(game));
     }
 
+    @GetMapping("/{gameId}/legal-moves")
+    public ResponseEntity<Map<String, Object>> getLegalMoves(@PathVariable Long gameId) {
+        LegalMoveTable legalMoves = gameService.getLegalMoves(gameId);
+        return ResponseEntity.ok(Map.of(
+                "fen", legalMoves.getFen(),
+                "moves", legalMoves.asMap()));
+    }
+
+    @GetMapping("/{gameId}/position")
+    public ResponseEntity<Map<String, Object>> getPosition(
+            @PathVariable Long gameId,
+            @RequestParam int ply) {
+        String fen = gameService.getPositionAt(gameId, ply);
+        return ResponseEntity.ok(Map.of("ply", ply, "fen", fen));
+    }
+
     @PostMapping("/move/{gameId}")
     public ResponseEntity<GameDTO> makeMove(
             @PathVariable Long gameId,
@@ -73,6 +168,7 @@ public class GameController {
                 .blackPlayerName(game.getBlackPlayerName())
                 .fen(game.getFen())
                 .pgn(game.getPgn())
+                .plyCount(game.getPlyCount())
                 .status(game.getStatus().name())
                 .currentTurn(game.getCurrentTurn())
                 .timeControl(game.getTimeControl().name())
@@ -0,0 +1,20 @@
+package com.indichess.matchservice.controller;
+
+import com.indichess.matchservice.service.GameService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// Node-to-node endpoints; not routed by the api-gateway
+@RestController
+@RequestMapping("/internal/games")
+@RequiredArgsConstructor
+public class InternalGameController {
+    private final GameService gameService;
+
+    @PostMapping("/{gameId}/adopt")
+    public ResponseEntity<Void> adoptGame(@PathVariable Long gameId) {
+        gameService.adoptGame(gameId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -2,27 +2,22 @@ package com.indichess.matchservice.controller;
 
 import com.indichess.common.dto.UserDTO;
 import com.indichess.matchservice.client.UserServiceClient;
-import com.indichess.matchservice.model.Game;
 import com.indichess.matchservice.model.TimeControl;
-import com.indichess.matchservice.service.GameService;
+import com.indichess.matchservice.service.MatchResult;
+import com.indichess.matchservice.service.MatchmakingService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/matchmaking")
 @RequiredArgsConstructor
 public class MatchmakingController {
-        private final GameService gameService;
+        private final MatchmakingService matchmakingService;
         private final UserServiceClient userServiceClient;
-        private final SimpMessagingTemplate messagingTemplate;
-
-        // Queue storage: username -> {timeControl, joinTime}
-        private final ConcurrentHashMap<String, Map<String, Object>> waitingPlayers = new ConcurrentHashMap<>();
 
         @PostMapping("/queue")
         public ResponseEntity<Map<String, Object>> joinQueue(
@@ -42,77 +37,53 @@ public class MatchmakingController {
                         return ResponseEntity.badRequest().body(Map.of("error", "User not found"));
                 }
 
-                // Check if already waiting
-                if (waitingPlayers.containsKey(username)) {
+                MatchResult match = matchmakingService.join(user, timeControl);
+
+                if (match.isAlreadyQueued()) {
                         return ResponseEntity.ok(Map.of(
                                         "status", "WAITING",
-                                        "message", "Already in queue"));
+                                        "message", "Already in queue",
+                                        "queuePosition", match.getQueuePosition()));
                 }
 
-                // Try to find a match
-                TimeControl finalTimeControl = timeControl;
-                String opponent = waitingPlayers.entrySet().stream()
-                                .filter(entry -> !entry.getKey().equals(username))
-                                .filter(entry -> entry.getValue().get("timeControl").equals(finalTimeControl.name()))
-                                .map(Map.Entry::getKey)
-                                .findFirst()
-                                .orElse(null);
-
-                if (opponent != null) {
-                        // Match found!
-                        UserDTO opponentUser = userServiceClient.getUserByUsername(opponent);
-                        waitingPlayers.remove(opponent);
-
-                        // Create the game
-                        Game game = gameService.createGame(user, opponentUser, timeControl);
-
-                        // Notify both players via WebSocket
-                        Map<String, Object> matchData = Map.of(
-                                        "gameId", game.getId(),
-                                        "whitePlayer", game.getWhitePlayerName(),
-                                        "blackPlayer", game.getBlackPlayerName(),
-                                        "timeControl", timeControl.name());
-
-                        // Notify the opponent who was waiting
-                        messagingTemplate.convertAndSendToUser(
-                                        opponent, "/queue/match-found", matchData);
-
-                        // Return match data to current user
+                if (match.isMatched()) {
+                        // The waiting opponent is notified via WebSocket by the matchmaking service
                         return ResponseEntity.ok(Map.of(
                                         "status", "MATCHED",
-                                        "gameId", game.getId(),
-                                        "opponent", opponent,
-                                        "color", "black", // Current user is black (joined second)
+                                        "gameId", match.getGameId(),
+                                        "opponent", match.getOpponent(),
+                                        "color", match.getColor(),
                                         "timeControl", timeControl.name()));
                 }
 
-                // No opponent found, add to queue
-                waitingPlayers.put(username, Map.of(
-                                "timeControl", timeControl.name(),
-                                "joinTime", System.currentTimeMillis()));
-
                 return ResponseEntity.ok(Map.of(
                                 "status", "WAITING",
                                 "message", "Waiting for opponent",
-                                "queuePosition", waitingPlayers.size()));
+                                "queuePosition", match.getQueuePosition()));
         }
 
         @DeleteMapping("/queue")
         public ResponseEntity<Map<String, Object>> leaveQueue(
                         @RequestHeader("X-Username") String username) {
-                waitingPlayers.remove(username);
+                matchmakingService.leave(username);
                 return ResponseEntity.ok(Map.of(
                                 "status", "LEFT",
                                 "message", "Left the queue"));
         }
 
+        @GetMapping("/stats")
+        public ResponseEntity<Map<String, Object>> getStats() {
+                return ResponseEntity.ok(matchmakingService.getStats());
+        }
+
         @GetMapping("/queue/status")
         public ResponseEntity<Map<String, Object>> getQueueStatus(
                         @RequestHeader("X-Username") String username) {
-                if (waitingPlayers.containsKey(username)) {
+                Optional<Integer> position = matchmakingService.getQueuePosition(username);
+                if (position.isPresent()) {
                         return ResponseEntity.ok(Map.of(
                                         "status", "WAITING",
-                                        "queuePosition", waitingPlayers.size()));
+                                        "queuePosition", position.get()));
                 }
                 return ResponseEntity.ok(Map.of(
                                 "status", "NOT_IN_QUEUE"));
@@ -0,0 +1,65 @@
+package com.indichess.matchservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * A finished game moved out of {@code games} by the archiver. It keeps the
+ * game's id and the columns history pages need; the rest of the game is in
+ * {@code record} (see GameArchiveCodec).
+ */
+@Entity
+@Table(name = "archived_games")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedGame implements Persistable<Long> {
+    @Id
+    private Long id;
+
+    @Column(name = "white_player_id")
+    private Long whitePlayerId;
+
+    @Column(name = "black_player_id")
+    private Long blackPlayerId;
+
+    @Column(name = "white_player_name")
+    private String whitePlayerName;
+
+    @Column(name = "black_player_name")
+    private String blackPlayerName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private GameStatus status;
+
+    @Column(length = 7)
+    private String result;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "time_control", length = 20)
+    private TimeControl timeControl;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] record;
+
+    // Archive rows are only ever inserted; skips the select-before-merge of an assigned id
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,17 @@
+package com.indichess.matchservice.model;
+
+import lombok.Getter;
+
+@Getter
+public enum DrawReason {
+    STALEMATE("Draw by stalemate"),
+    INSUFFICIENT_MATERIAL("Draw by insufficient material"),
+    THREEFOLD_REPETITION("Draw by threefold repetition"),
+    FIFTY_MOVE_RULE("Draw by fifty-move rule");
+
+    private final String message;
+
+    DrawReason(String message) {
+        this.message = message;
+    }
+}
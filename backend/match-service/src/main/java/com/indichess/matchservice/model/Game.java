@@ -9,13 +9,11 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 @Entity
 @Table(name = "games")
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Game {
@@ -64,12 +62,22 @@ public class Game {
     @Column(name = "status_message")
     private String statusMessage;
 
+    // PGN result of a finished game: "1-0", "0-1" or "1/2-1/2"
+    @Column(length = 7)
+    private String result;
+
     @Column(name = "previous_fen", length = 100)
     private String previousFen;
 
-    @OneToMany(mappedBy = "game", cascade = CascadeType.ALL, orphanRemoval = true)
+    // Moves are appended through MoveRepository; this avoids loading the log per ply
+    @Column(name = "ply_count", nullable = false)
     @Builder.Default
-    private List<Move> moves = new ArrayList<>();
+    private Integer plyCount = 0;
+
+    // Compact move record of a finished game (see GameRecordWriter)
+    @Lob
+    @Column(name = "move_record")
+    private byte[] moveRecord;
 
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
@@ -1,9 +1,14 @@
 package com.indichess.matchservice.model;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum GameStatus {
     WAITING,
     IN_PROGRESS,
     COMPLETED,
     DRAW,
-    ABANDONED
+    ABANDONED;
+
+    public static final Set<GameStatus> FINISHED = EnumSet.of(COMPLETED, DRAW, ABANDONED);
 }
@@ -0,0 +1,34 @@
+package com.indichess.matchservice.repository;
+
+import com.indichess.matchservice.model.ArchivedGame;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ArchivedGameRepository extends JpaRepository<ArchivedGame, Long> {
+    List<ArchivedGame> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable page);
+
+    // Same keyset pages as GameRepository, over the archive's history indexes
+
+    @Query("SELECT g.id AS id, g.createdAt AS createdAt, 'WHITE' AS color, g.blackPlayerName AS opponentName, "
+            + "g.status AS status, g.result AS result, g.timeControl AS timeControl FROM ArchivedGame g "
+            + "WHERE g.whitePlayerId = :playerId "
+            + "AND (g.createdAt < :createdAt OR (g.createdAt = :createdAt AND g.id < :id)) "
+            + "ORDER BY g.createdAt DESC, g.id DESC")
+    List<GameHistoryView> findHistoryAsWhite(@Param("playerId") Long playerId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable page);
+
+    @Query("SELECT g.id AS id, g.createdAt AS createdAt, 'BLACK' AS color, g.whitePlayerName AS opponentName, "
+            + "g.status AS status, g.result AS result, g.timeControl AS timeControl FROM ArchivedGame g "
+            + "WHERE g.blackPlayerId = :playerId "
+            + "AND (g.createdAt < :createdAt OR (g.createdAt = :createdAt AND g.id < :id)) "
+            + "ORDER BY g.createdAt DESC, g.id DESC")
+    List<GameHistoryView> findHistoryAsBlack(@Param("playerId") Long playerId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable page);
+}
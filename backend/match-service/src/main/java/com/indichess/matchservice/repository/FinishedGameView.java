@@ -0,0 +1,16 @@
+package com.indichess.matchservice.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * What the position explorer needs of a finished game: its result and moves.
+ */
+public interface FinishedGameView {
+    Long getId();
+
+    String getResult();
+
+    byte[] getMoveRecord();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,26 @@
+package com.indichess.matchservice.repository;
+
+import com.indichess.matchservice.model.GameStatus;
+import com.indichess.matchservice.model.TimeControl;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of a player's game history, read entirely from the per-side history
+ * index without touching the game's moves or record.
+ */
+public interface GameHistoryView {
+    Long getId();
+
+    LocalDateTime getCreatedAt();
+
+    String getColor();
+
+    String getOpponentName();
+
+    GameStatus getStatus();
+
+    String getResult();
+
+    TimeControl getTimeControl();
+}
@@ -2,9 +2,15 @@ package com.indichess.matchservice.repository;
 
 import com.indichess.matchservice.model.Game;
 import com.indichess.matchservice.model.GameStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,7 +18,65 @@ import java.util.Optional;
 public interface GameRepository extends JpaRepository<Game, Long> {
     List<Game> findByStatus(GameStatus status);
 
-    List<Game> findByWhitePlayerIdOrBlackPlayerId(Long whitePlayerId, Long blackPlayerId);
+    List<RunningClockView> findClocksByStatus(GameStatus status);
 
     Optional<Game> findFirstByStatusOrderByCreatedAtAsc(GameStatus status);
+
+    // Write-behind update of a live game; leaves pgn and the other TEXT/static columns alone
+    @Modifying
+    @Query("UPDATE Game g SET g.fen = :#{#game.fen}, g.previousFen = :#{#game.previousFen}, "
+            + "g.plyCount = :#{#game.plyCount}, g.status = :#{#game.status}, "
+            + "g.statusMessage = :#{#game.statusMessage}, g.currentTurn = :#{#game.currentTurn}, "
+            + "g.whiteTimeRemaining = :#{#game.whiteTimeRemaining}, "
+            + "g.blackTimeRemaining = :#{#game.blackTimeRemaining}, "
+            + "g.lastMoveTime = :#{#game.lastMoveTime} WHERE g.id = :#{#game.id}")
+    int updateLiveState(@Param("game") Game game);
+
+    @Modifying
+    @Query("UPDATE Game g SET g.pgn = :pgn, g.moveRecord = :record, g.result = :result WHERE g.id = :id")
+    int updateFinalRecord(@Param("id") Long id, @Param("pgn") String pgn, @Param("record") byte[] record,
+            @Param("result") String result);
+
+    // Finished games last written before the cutoff, for the archiver
+    @Query("SELECT g.id FROM Game g WHERE g.status IN :statuses AND g.updatedAt < :before")
+    List<Long> findIdsFinishedBefore(@Param("statuses") Collection<GameStatus> statuses,
+            @Param("before") LocalDateTime before, Pageable page);
+
+    @Modifying
+    @Query("DELETE FROM Game g WHERE g.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Finished games in id order, for building the position index
+    @Query("SELECT g.id AS id, g.result AS result, g.moveRecord AS moveRecord, g.updatedAt AS updatedAt "
+            + "FROM Game g WHERE g.status IN :statuses AND g.id > :afterId ORDER BY g.id")
+    List<FinishedGameView> findFinishedAfterId(@Param("statuses") Collection<GameStatus> statuses,
+            @Param("afterId") Long afterId, Pageable page);
+
+    // Finished games after the (updatedAt, id) cursor, oldest first; finished rows are no longer updated.
+    // Paging on the pair rather than the timestamp alone, since many games can share one updated_at.
+    @Query("SELECT g.id AS id, g.result AS result, g.moveRecord AS moveRecord, g.updatedAt AS updatedAt "
+            + "FROM Game g WHERE g.status IN :statuses "
+            + "AND (g.updatedAt > :updatedAt OR (g.updatedAt = :updatedAt AND g.id > :id)) "
+            + "ORDER BY g.updatedAt, g.id")
+    List<FinishedGameView> findFinishedAfter(@Param("statuses") Collection<GameStatus> statuses,
+            @Param("updatedAt") LocalDateTime updatedAt, @Param("id") Long id, Pageable page);
+
+    // History pages, one query per side so each is a range scan of its covering index.
+    // The cursor is the (createdAt, id) of the last row of the previous page.
+
+    @Query("SELECT g.id AS id, g.createdAt AS createdAt, 'WHITE' AS color, g.blackPlayerName AS opponentName, "
+            + "g.status AS status, g.result AS result, g.timeControl AS timeControl FROM Game g "
+            + "WHERE g.whitePlayerId = :playerId "
+            + "AND (g.createdAt < :createdAt OR (g.createdAt = :createdAt AND g.id < :id)) "
+            + "ORDER BY g.createdAt DESC, g.id DESC")
+    List<GameHistoryView> findHistoryAsWhite(@Param("playerId") Long playerId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable page);
+
+    @Query("SELECT g.id AS id, g.createdAt AS createdAt, 'BLACK' AS color, g.whitePlayerName AS opponentName, "
+            + "g.status AS status, g.result AS result, g.timeControl AS timeControl FROM Game g "
+            + "WHERE g.blackPlayerId = :playerId "
+            + "AND (g.createdAt < :createdAt OR (g.createdAt = :createdAt AND g.id < :id)) "
+            + "ORDER BY g.createdAt DESC, g.id DESC")
+    List<GameHistoryView> findHistoryAsBlack(@Param("playerId") Long playerId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable page);
 }
@@ -2,11 +2,23 @@ package com.indichess.matchservice.repository;
 
 import com.indichess.matchservice.model.Move;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface MoveRepository extends JpaRepository<Move, Long> {
     List<Move> findByGameIdOrderByMoveNumberAsc(Long gameId);
+
+    @Modifying
+    @Query("DELETE FROM Move m WHERE m.game.id = :gameId")
+    int deleteByGameId(@Param("gameId") Long gameId);
+
+    @Modifying
+    @Query("DELETE FROM Move m WHERE m.game.id IN :gameIds")
+    int deleteByGameIdIn(@Param("gameIds") Collection<Long> gameIds);
 }
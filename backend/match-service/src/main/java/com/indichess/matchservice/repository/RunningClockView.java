@@ -0,0 +1,16 @@
+package com.indichess.matchservice.repository;
+
+/**
+ * Clock columns of a running game, enough to reschedule its flag deadline.
+ */
+public interface RunningClockView {
+    Long getId();
+
+    String getCurrentTurn();
+
+    Long getWhiteTimeRemaining();
+
+    Long getBlackTimeRemaining();
+
+    Long getLastMoveTime();
+}
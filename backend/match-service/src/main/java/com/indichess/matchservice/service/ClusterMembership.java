@@ -0,0 +1,110 @@
+package com.indichess.matchservice.service;
+
+import com.indichess.common.routing.ConsistentHashRing;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides which node owns each game, using the same consistent-hash ring as
+ * the api-gateway over the match-service nodes that are up. Peers are
+ * health-checked periodically; when the set changes an
+ * {@link OwnershipChangedEvent} is published so games can move. Without
+ * configured peers this node owns every game. Startup fails if the node list
+ * and the broker mode don't agree (peers without relay, or relay without peers).
+ */
+@Slf4j
+@Component
+public class ClusterMembership {
+    private final String self;
+    private final List<String> peers;
+    private final Duration timeout;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WebClient webClient = WebClient.create();
+
+    private volatile ConsistentHashRing ring;
+
+    public ClusterMembership(@Value("${match.cluster.self:local}") String self,
+            @Value("${match.cluster.nodes:}") List<String> nodes,
+            @Value("${match.cluster.health-timeout-ms:1000}") long timeoutMillis,
+            @Value("${match.broker.mode:simple}") String brokerMode,
+            ApplicationEventPublisher eventPublisher) {
+        this.self = self;
+        this.peers = nodes.stream()
+                .filter(node -> !node.isBlank() && !node.equals(self))
+                .toList();
+        validate(nodes, "relay".equalsIgnoreCase(brokerMode));
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.eventPublisher = eventPublisher;
+        List<String> all = new ArrayList<>(peers);
+        all.add(self);
+        this.ring = ConsistentHashRing.of(all);
+    }
+
+    // Nodes that disagree on the node list or the broker would each claim the same games
+    private void validate(List<String> nodes, boolean relay) {
+        if (relay && peers.isEmpty()) {
+            throw new IllegalStateException("Relay mode runs several nodes: list all of them, this one included, "
+                    + "in match.cluster.nodes (MATCH_CLUSTER_NODES)");
+        }
+        if (!relay && !peers.isEmpty()) {
+            throw new IllegalStateException("Several match-service nodes need a shared broker: "
+                    + "set match.broker.mode (MATCH_BROKER_MODE) to relay");
+        }
+        if (!peers.isEmpty() && !nodes.contains(self)) {
+            throw new IllegalStateException("match.cluster.self (" + self + ") is not in match.cluster.nodes");
+        }
+    }
+
+    public boolean isOwner(Long gameId) {
+        return self.equals(ring.ownerOf(gameId));
+    }
+
+    public String ownerOf(Long gameId) {
+        return ring.ownerOf(gameId);
+    }
+
+    @Scheduled(fixedDelayString = "${match.cluster.health-interval-ms:2000}")
+    public void checkPeers() {
+        if (peers.isEmpty()) {
+            return;
+        }
+        // Non-blocking, so a slow peer does not hold up the other scheduled tasks
+        Flux.fromIterable(peers)
+                .flatMap(peer -> webClient.get()
+                        .uri(peer + "/actuator/health")
+                        .retrieve()
+                        .toBodilessEntity()
+                        .timeout(timeout)
+                        .map(response -> peer)
+                        .onErrorResume(e -> Mono.empty()))
+                .collectList()
+                // Listeners hit the database; keep them off the HTTP client's event loop
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(this::update);
+    }
+
+    private synchronized void update(List<String> healthyPeers) {
+        List<String> up = new ArrayList<>(healthyPeers);
+        up.add(self);
+        ConsistentHashRing next = ConsistentHashRing.of(up);
+        if (!next.getNodes().equals(ring.getNodes())) {
+            log.info("Cluster membership changed: {} -> {}", ring.getNodes(), next.getNodes());
+            ring = next;
+            eventPublisher.publishEvent(new OwnershipChangedEvent(next.getNodes()));
+        }
+    }
+
+    public record OwnershipChangedEvent(List<String> nodes) {
+    }
+}
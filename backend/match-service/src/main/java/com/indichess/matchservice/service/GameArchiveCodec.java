@@ -0,0 +1,152 @@
+package com.indichess.matchservice.service;
+
+import com.indichess.matchservice.model.ArchivedGame;
+import com.indichess.matchservice.model.Game;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Converts finished games to and from archive rows. The columns that are not
+ * needed to list a game are packed into one deflated record:
+ *
+ * <pre>
+ * byte    version
+ * deflated:
+ *   string  fen, previous FEN, PGN, status message, current turn
+ *   long    white time, black time, last move time
+ *   int     ply count
+ *   bytes   move record (see GameRecordWriter)
+ * </pre>
+ *
+ * Strings and byte arrays are an int length (-1 for null) and the bytes;
+ * nullable longs are a presence flag and the value.
+ */
+public final class GameArchiveCodec {
+    static final int VERSION = 1;
+
+    private GameArchiveCodec() {
+    }
+
+    public static ArchivedGame toArchive(Game game, byte[] moveRecord) {
+        return ArchivedGame.builder()
+                .id(game.getId())
+                .whitePlayerId(game.getWhitePlayerId())
+                .blackPlayerId(game.getBlackPlayerId())
+                .whitePlayerName(game.getWhitePlayerName())
+                .blackPlayerName(game.getBlackPlayerName())
+                .status(game.getStatus())
+                .result(game.getResult())
+                .timeControl(game.getTimeControl())
+                .createdAt(game.getCreatedAt())
+                .finishedAt(game.getUpdatedAt())
+                .record(encode(game, moveRecord))
+                .build();
+    }
+
+    public static Game fromArchive(ArchivedGame archived) {
+        Game game = Game.builder()
+                .id(archived.getId())
+                .whitePlayerId(archived.getWhitePlayerId())
+                .blackPlayerId(archived.getBlackPlayerId())
+                .whitePlayerName(archived.getWhitePlayerName())
+                .blackPlayerName(archived.getBlackPlayerName())
+                .status(archived.getStatus())
+                .result(archived.getResult())
+                .timeControl(archived.getTimeControl())
+                .createdAt(archived.getCreatedAt())
+                .updatedAt(archived.getFinishedAt())
+                .build();
+
+        byte[] record = archived.getRecord();
+        if (record.length == 0 || record[0] != VERSION) {
+            throw new IllegalStateException("Unsupported archive record version for game " + archived.getId());
+        }
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(record, 1, record.length - 1)))) {
+            game.setFen(readString(in));
+            game.setPreviousFen(readString(in));
+            game.setPgn(readString(in));
+            game.setStatusMessage(readString(in));
+            game.setCurrentTurn(readString(in));
+            game.setWhiteTimeRemaining(readLong(in));
+            game.setBlackTimeRemaining(readLong(in));
+            game.setLastMoveTime(readLong(in));
+            game.setPlyCount(in.readInt());
+            game.setMoveRecord(readBytes(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt archive record for game " + archived.getId(), e);
+        }
+        return game;
+    }
+
+    private static byte[] encode(Game game, byte[] moveRecord) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        bytes.write(VERSION);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            writeString(out, game.getFen());
+            writeString(out, game.getPreviousFen());
+            writeString(out, game.getPgn());
+            writeString(out, game.getStatusMessage());
+            writeString(out, game.getCurrentTurn());
+            writeLong(out, game.getWhiteTimeRemaining());
+            writeLong(out, game.getBlackTimeRemaining());
+            writeLong(out, game.getLastMoveTime());
+            out.writeInt(game.getPlyCount() != null ? game.getPlyCount() : 0);
+            writeBytes(out, moveRecord);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] value = readBytes(in);
+        return value != null ? new String(value, StandardCharsets.UTF_8) : null;
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+}
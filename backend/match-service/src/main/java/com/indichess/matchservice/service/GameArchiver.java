@@ -0,0 +1,106 @@
+package com.indichess.matchservice.service;
+
+import com.indichess.matchservice.model.ArchivedGame;
+import com.indichess.matchservice.model.Game;
+import com.indichess.matchservice.model.GameStatus;
+import com.indichess.matchservice.repository.ArchivedGameRepository;
+import com.indichess.matchservice.repository.GameRepository;
+import com.indichess.matchservice.repository.MoveRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves finished games out of the live tables once they are older than a
+ * threshold, so {@code games} holds little more than the games being played.
+ * Each batch is inserted into {@code archived_games} and deleted from
+ * {@code games} and {@code moves} in one transaction, so a game is always in
+ * exactly one of the two tables. Reads go through {@link GameService}, which
+ * falls back to the archive.
+ * <p>
+ * One node runs the archiver: the owner of key 0, which the gateway also sends
+ * matchmaking to.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GameArchiver {
+    private static final long ARCHIVER_KEY = 0L;
+
+    private final GameRepository gameRepository;
+    private final MoveRepository moveRepository;
+    private final ArchivedGameRepository archivedGameRepository;
+    private final ClusterMembership clusterMembership;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${match.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${match.archive.after-hours:24}")
+    private long afterHours;
+
+    @Value("${match.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${match.archive.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Scheduled(fixedDelayString = "${match.archive.interval-ms:60000}")
+    public void archiveFinishedGames() {
+        if (!enabled || !clusterMembership.isOwner(ARCHIVER_KEY)) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofHours(afterHours));
+        int archived = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int count;
+            try {
+                count = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            } catch (RuntimeException e) {
+                log.error("Archiving finished games failed, will retry", e);
+                break;
+            }
+            archived += count;
+            if (count < batchSize) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            log.info("Archived {} finished games", archived);
+        }
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = gameRepository.findIdsFinishedBefore(GameStatus.FINISHED, cutoff,
+                PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<ArchivedGame> archives = new ArrayList<>(ids.size());
+        for (Game game : gameRepository.findAllById(ids)) {
+            archives.add(GameArchiveCodec.toArchive(game, moveRecordOf(game)));
+        }
+        archivedGameRepository.saveAll(archives);
+        moveRepository.deleteByGameIdIn(ids);
+        gameRepository.deleteByIdIn(ids);
+        return ids.size();
+    }
+
+    // Games finished before move records existed still have their moves rows
+    private byte[] moveRecordOf(Game game) {
+        if (game.getMoveRecord() != null) {
+            return game.getMoveRecord();
+        }
+        return GameReplay.recordOf(game, moveRepository.findByGameIdOrderByMoveNumberAsc(game.getId()))
+                .toByteArray();
+    }
+}
@@ -0,0 +1,173 @@
+package com.indichess.matchservice.service;
+
+import com.indichess.matchservice.config.CoalescingWebSocketSessionDecorator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans game updates out to the WebSocket sessions subscribed to
+ * {@code /topic/game/{id}} on this node without going through the broker. An
+ * update is encoded into a STOMP frame once per subscription id rather than
+ * once per session; clients subscribe with the topic itself as the id, so
+ * normally one frame is shared by every spectator. Every session is wrapped in
+ * a {@link CoalescingWebSocketSessionDecorator}, so a broadcast only enqueues
+ * and slow spectators see the newest update rather than a backlog.
+ * <p>
+ * Only used with the in-process broker; with a broker relay, subscribers on
+ * other nodes are only reachable through the broker.
+ */
+@Slf4j
+@Component
+public class GameBroadcaster {
+    private static final String GAME_TOPIC = "/topic/game/";
+
+    private final boolean enabled;
+    private final int queueLimit;
+    private final ExecutorService senders;
+    private final StompEncoder encoder = new StompEncoder();
+    private final AtomicLong messageIds = new AtomicLong();
+
+    private final ConcurrentHashMap<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    // destination -> session id -> subscription id
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, String>> subscribers = new ConcurrentHashMap<>();
+
+    public GameBroadcaster(@Value("${match.broker.mode:simple}") String brokerMode,
+            @Value("${match.websocket.send-queue-limit:1000}") int queueLimit,
+            @Value("${match.websocket.sender-threads:0}") int senderThreads) {
+        this.enabled = "simple".equalsIgnoreCase(brokerMode);
+        this.queueLimit = queueLimit;
+        int threads = senderThreads > 0 ? senderThreads : 2 * Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ws-sender-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sends a pre-serialized JSON payload to every local subscriber of the destination.
+     */
+    public void broadcast(String destination, byte[] payload) {
+        Map<String, String> subscriptions = subscribers.get(destination);
+        if (subscriptions == null || subscriptions.isEmpty()) {
+            return;
+        }
+        String messageId = Long.toString(messageIds.incrementAndGet());
+        Map<String, TextMessage> frames = new HashMap<>();
+        subscriptions.forEach((sessionId, subscriptionId) -> {
+            WebSocketSession session = sessions.get(sessionId);
+            if (session == null) {
+                return;
+            }
+            TextMessage frame = frames.computeIfAbsent(subscriptionId,
+                    id -> encode(destination, id, messageId, payload));
+            try {
+                session.sendMessage(frame);
+            } catch (IOException e) {
+                log.debug("Broadcast to session {} failed", sessionId, e);
+            }
+        });
+    }
+
+    private TextMessage encode(String destination, String subscriptionId, String messageId, byte[] payload) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        headers.setDestination(destination);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setMessageId(messageId);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return new TextMessage(encoder.encode(headers.getMessageHeaders(), payload));
+    }
+
+    /**
+     * Wraps the STOMP WebSocket handler so every session it sees is decorated,
+     * and keeps track of the decorated sessions for broadcasting.
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                WebSocketSession decorated = new CoalescingWebSocketSessionDecorator(session, senders, queueLimit);
+                sessions.put(session.getId(), decorated);
+                super.afterConnectionEstablished(decorated);
+            }
+
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                super.handleMessage(sessions.getOrDefault(session.getId(), session), message);
+            }
+
+            @Override
+            public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+                super.handleTransportError(sessions.getOrDefault(session.getId(), session), exception);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                WebSocketSession decorated = sessions.remove(session.getId());
+                super.afterConnectionClosed(decorated != null ? decorated : session, closeStatus);
+            }
+        };
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = headers.getDestination();
+        if (destination != null && destination.startsWith(GAME_TOPIC)) {
+            subscribers.computeIfAbsent(destination, key -> new ConcurrentHashMap<>())
+                    .put(headers.getSessionId(), headers.getSubscriptionId());
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String sessionId = headers.getSessionId();
+        String subscriptionId = headers.getSubscriptionId();
+        subscribers.values().forEach(sessionsOf -> sessionsOf.remove(sessionId, subscriptionId));
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String sessionId = event.getSessionId();
+        subscribers.values().forEach(sessionsOf -> sessionsOf.remove(sessionId));
+        subscribers.values().removeIf(Map::isEmpty);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+}
@@ -0,0 +1,154 @@
+package com.indichess.matchservice.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tracks the flag deadline of every running clock on a hashed timing wheel.
+ * One ticker thread advances the wheel; each game has at most one live deadline,
+ * replaced on every move, so scheduling and cancelling are O(1) and the cost of
+ * a tick only depends on the deadlines hashed into its bucket. Deadlines fire up
+ * to one tick late, never early.
+ */
+@Slf4j
+@Component
+public class GameClockScheduler {
+    private final long tickMillis;
+    private final int mask;
+    private final List<Deadline>[] wheel;
+    private final long startTime;
+
+    // Current deadline per game; older entries left in the wheel are marked cancelled
+    private final ConcurrentHashMap<Long, Deadline> deadlines = new ConcurrentHashMap<>();
+
+    // Handed over to the ticker thread, which owns the wheel buckets
+    private final ConcurrentLinkedQueue<Deadline> pending = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService ticker;
+    private long tick;
+    private volatile Consumer<Long> expiryHandler = gameId -> {
+    };
+
+    @SuppressWarnings("unchecked")
+    public GameClockScheduler(@Value("${match.clock.tick-ms:100}") long tickMillis,
+            @Value("${match.clock.wheel-size:512}") int wheelSize) {
+        this.tickMillis = tickMillis;
+        int size = Integer.highestOneBit(Math.max(wheelSize - 1, 1)) << 1;
+        this.mask = size - 1;
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.startTime = System.currentTimeMillis();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the callback run on the ticker thread when a game's deadline passes.
+     * It must hand the work off rather than block the wheel.
+     */
+    public void onExpiry(Consumer<Long> handler) {
+        this.expiryHandler = handler;
+    }
+
+    /**
+     * Schedules the flag check of a game, replacing any earlier deadline.
+     */
+    public void schedule(Long gameId, long deadlineMillis) {
+        Deadline deadline = new Deadline(gameId, deadlineMillis);
+        Deadline previous = deadlines.put(gameId, deadline);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        pending.add(deadline);
+    }
+
+    public void cancel(Long gameId) {
+        Deadline deadline = deadlines.remove(gameId);
+        if (deadline != null) {
+            deadline.cancelled = true;
+        }
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+
+    private void advance() {
+        long target = (System.currentTimeMillis() - startTime) / tickMillis;
+        while (tick <= target) {
+            transferPending();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        Deadline deadline;
+        while ((deadline = pending.poll()) != null) {
+            if (deadline.cancelled) {
+                continue;
+            }
+            // Round up so a deadline never fires before it is due
+            long due = Math.max(tick, (deadline.time - startTime + tickMillis - 1) / tickMillis);
+            deadline.rounds = (due - tick) / wheel.length;
+            wheel[(int) (due & mask)].add(deadline);
+        }
+    }
+
+    private void expire(List<Deadline> bucket) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Deadline deadline = bucket.get(i);
+            if (deadline.cancelled) {
+                continue;
+            }
+            if (deadline.rounds > 0) {
+                deadline.rounds--;
+                bucket.set(kept++, deadline);
+                continue;
+            }
+            if (deadlines.remove(deadline.gameId, deadline)) {
+                try {
+                    expiryHandler.accept(deadline.gameId);
+                } catch (RuntimeException e) {
+                    log.error("Clock expiry handler failed for game {}", deadline.gameId, e);
+                }
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    private static final class Deadline {
+        private final Long gameId;
+        private final long time;
+        private long rounds;
+        private volatile boolean cancelled;
+
+        private Deadline(Long gameId, long time) {
+            this.gameId = gameId;
+            this.time = time;
+        }
+    }
+}
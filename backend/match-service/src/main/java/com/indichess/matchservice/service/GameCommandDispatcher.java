@@ -0,0 +1,79 @@
+package com.indichess.matchservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Runs every command for a game on one single-threaded lane, so a game's state is
+ * only ever touched by one thread and commands apply in arrival order. Games are
+ * striped across a fixed number of lanes (one per core by default), so different
+ * games still run in parallel.
+ */
+@Component
+public class GameCommandDispatcher {
+    private final ExecutorService[] lanes;
+
+    // Index of the lane the current thread belongs to, if any
+    private final ThreadLocal<Integer> currentLane = new ThreadLocal<>();
+
+    public GameCommandDispatcher(@Value("${match.dispatcher.lanes:0}") int configuredLanes) {
+        int count = configuredLanes > 0 ? configuredLanes : Runtime.getRuntime().availableProcessors();
+        lanes = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(() -> {
+                    currentLane.set(index);
+                    runnable.run();
+                }, "game-lane-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Long gameId, Supplier<T> command) {
+        int lane = laneOf(gameId);
+        if (Integer.valueOf(lane).equals(currentLane.get())) {
+            try {
+                return CompletableFuture.completedFuture(command.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.supplyAsync(command, lanes[lane]);
+    }
+
+    /**
+     * Runs a command on the game's lane and waits for it, rethrowing whatever the
+     * command threw so callers see the same exceptions as a direct call.
+     */
+    public <T> T execute(Long gameId, Supplier<T> command) {
+        try {
+            return submit(gameId, command).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private int laneOf(Long gameId) {
+        return Math.floorMod(Long.hashCode(gameId), lanes.length);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.indichess.matchservice.service;
 
 import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.Rank;
+import com.github.bhlangonijr.chesslib.Side;
 import com.github.bhlangonijr.chesslib.Square;
 import com.github.bhlangonijr.chesslib.move.Move;
 import com.indichess.common.exception.InvalidMoveException;
+import com.indichess.matchservice.model.DrawReason;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -24,55 +29,214 @@ public class GameEngineService {
         return board;
     }
 
-    public String makeMove(String currentFen, String from, String to, String promotion) {
-        Board board = createBoard(currentFen);
-
-        Square fromSquare = Square.valueOf(from.toUpperCase());
-        Square toSquare = Square.valueOf(to.toUpperCase());
-
-        Move move;
-        if (promotion != null && !promotion.isEmpty()) {
-            move = new Move(fromSquare, toSquare,
-                    com.github.bhlangonijr.chesslib.Piece.fromValue(promotion.toUpperCase()));
-        } else {
-            move = new Move(fromSquare, toSquare);
+    /**
+     * Rebuilds a game's board by replaying its moves, so the Zobrist history
+     * needed for repetition detection is restored along with the position.
+     */
+    public Board replay(List<String> uciMoves) {
+        Board board = createBoard(INITIAL_FEN);
+        for (String uci : uciMoves) {
+            playUci(board, uci);
         }
+        return board;
+    }
 
-        // Check if move is legal
-        List<Move> legalMoves = board.legalMoves();
-        boolean isLegal = legalMoves.stream()
-                .anyMatch(m -> m.getFrom() == fromSquare && m.getTo() == toSquare);
+    // Plays a move from a trusted source (our own move log) without validation
+    public void playUci(Board board, String uci) {
+        Square from = Square.valueOf(uci.substring(0, 2).toUpperCase());
+        Square to = Square.valueOf(uci.substring(2, 4).toUpperCase());
+        board.doMove(uci.length() > 4
+                ? new Move(from, to, promotionPiece(board.getSideToMove(), uci.substring(4)))
+                : new Move(from, to));
+    }
 
-        if (!isLegal) {
+    public LegalMoveTable legalMoves(Board board) {
+        return LegalMoveTable.of(board.getFen(), board.legalMoves());
+    }
+
+    /**
+     * Validates a move against the precomputed legal moves of the current position,
+     * plays it on the given board and evaluates the resulting position on the same
+     * board. Legal moves are generated once, for the new position, and returned
+     * with the result. The board is left unchanged if the move is illegal.
+     */
+    public MoveResult evaluateMove(Board board, LegalMoveTable legalMoves,
+            String from, String to, String promotion) {
+        Move move = parseMove(board, from, to, promotion);
+        if (!legalMoves.allows(move.getFrom(), move.getTo())) {
             throw new InvalidMoveException("Illegal move: " + from + " to " + to);
         }
 
+        String san = toSan(board, move, legalMoves);
         board.doMove(move);
-        return board.getFen();
+
+        String fen = board.getFen();
+        LegalMoveTable replies = LegalMoveTable.of(fen, board.legalMoves());
+        boolean check = board.isKingAttacked();
+        boolean checkmate = check && replies.isEmpty();
+        boolean stalemate = !check && replies.isEmpty();
+
+        return MoveResult.builder()
+                .uci(toUci(move))
+                .san(checkmate ? san + "#" : check ? san + "+" : san)
+                .fen(fen)
+                .legalMoves(replies)
+                .sideToMove(board.getSideToMove().name())
+                .check(check)
+                .checkmate(checkmate)
+                .stalemate(stalemate)
+                .drawReason(checkmate ? null : drawReason(board, stalemate))
+                .build();
+    }
+
+    private Move parseMove(Board board, String from, String to, String promotion) {
+        Square fromSquare;
+        Square toSquare;
+        try {
+            fromSquare = Square.valueOf(from.toUpperCase());
+            toSquare = Square.valueOf(to.toUpperCase());
+        } catch (RuntimeException e) {
+            throw new InvalidMoveException("Invalid square: " + from + " to " + to);
+        }
+        // NONE is a Square constant too, but lies outside the board
+        if (fromSquare == Square.NONE || toSquare == Square.NONE) {
+            throw new InvalidMoveException("Invalid square: " + from + " to " + to);
+        }
+
+        // Promotion is only meaningful for a pawn reaching the last rank;
+        // clients send a default piece with every move, so ignore it otherwise
+        Piece moving = board.getPiece(fromSquare);
+        boolean promoting = moving.getPieceType() == PieceType.PAWN
+                && (toSquare.getRank() == Rank.RANK_8 || toSquare.getRank() == Rank.RANK_1);
+        if (!promoting) {
+            return new Move(fromSquare, toSquare);
+        }
+        return new Move(fromSquare, toSquare, promotionPiece(board.getSideToMove(), promotion));
+    }
+
+    private Piece promotionPiece(Side side, String promotion) {
+        String symbol = promotion == null || promotion.isEmpty() ? "q" : promotion.toLowerCase();
+        boolean white = side == Side.WHITE;
+        switch (symbol) {
+            case "q":
+                return white ? Piece.WHITE_QUEEN : Piece.BLACK_QUEEN;
+            case "r":
+                return white ? Piece.WHITE_ROOK : Piece.BLACK_ROOK;
+            case "b":
+                return white ? Piece.WHITE_BISHOP : Piece.BLACK_BISHOP;
+            case "n":
+                return white ? Piece.WHITE_KNIGHT : Piece.BLACK_KNIGHT;
+            default:
+                try {
+                    return Piece.fromValue(promotion.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new InvalidMoveException("Invalid promotion piece: " + promotion);
+                }
+        }
     }
 
-    public boolean isCheckmate(String fen) {
-        Board board = createBoard(fen);
-        return board.isMated();
+    private DrawReason drawReason(Board board, boolean stalemate) {
+        if (stalemate) {
+            return DrawReason.STALEMATE;
+        }
+        if (board.isInsufficientMaterial()) {
+            return DrawReason.INSUFFICIENT_MATERIAL;
+        }
+        if (board.isRepetition()) {
+            return DrawReason.THREEFOLD_REPETITION;
+        }
+        if (board.getHalfMoveCounter() >= 100) {
+            return DrawReason.FIFTY_MOVE_RULE;
+        }
+        return null;
     }
 
-    public boolean isStalemate(String fen) {
-        Board board = createBoard(fen);
-        return board.isStaleMate();
+    // SAN without the check suffix; must be called before the move is played
+    private String toSan(Board board, Move move, LegalMoveTable legalMoves) {
+        Square from = move.getFrom();
+        Square to = move.getTo();
+        Piece piece = board.getPiece(from);
+        PieceType type = piece.getPieceType();
+        int fileDelta = to.getFile().ordinal() - from.getFile().ordinal();
+
+        if (type == PieceType.KING && Math.abs(fileDelta) == 2) {
+            return fileDelta > 0 ? "O-O" : "O-O-O";
+        }
+
+        boolean capture = board.getPiece(to) != Piece.NONE || (type == PieceType.PAWN && fileDelta != 0);
+        String target = to.name().toLowerCase();
+        StringBuilder san = new StringBuilder();
+
+        if (type == PieceType.PAWN) {
+            if (capture) {
+                san.append(fileChar(from)).append('x');
+            }
+            san.append(target);
+            if (move.getPromotion() != Piece.NONE) {
+                san.append('=').append(sanSymbol(move.getPromotion().getPieceType()));
+            }
+            return san.toString();
+        }
+
+        san.append(sanSymbol(type));
+
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < 64; i++) {
+            Square other = Square.squareAt(i);
+            if (other != from && board.getPiece(other) == piece && legalMoves.allows(other, to)) {
+                ambiguous = true;
+                sameFile |= other.getFile() == from.getFile();
+                sameRank |= other.getRank() == from.getRank();
+            }
+        }
+        if (ambiguous) {
+            if (!sameFile) {
+                san.append(fileChar(from));
+            } else if (!sameRank) {
+                san.append(rankChar(from));
+            } else {
+                san.append(fileChar(from)).append(rankChar(from));
+            }
+        }
+
+        if (capture) {
+            san.append('x');
+        }
+        return san.append(target).toString();
     }
 
-    public boolean isDraw(String fen) {
-        Board board = createBoard(fen);
-        return board.isDraw();
+    private String toUci(Move move) {
+        String uci = move.getFrom().name().toLowerCase() + move.getTo().name().toLowerCase();
+        if (move.getPromotion() != Piece.NONE) {
+            uci += sanSymbol(move.getPromotion().getPieceType()).toLowerCase();
+        }
+        return uci;
+    }
+
+    private char fileChar(Square square) {
+        return Character.toLowerCase(square.name().charAt(0));
     }
 
-    public boolean isCheck(String fen) {
-        Board board = createBoard(fen);
-        return board.isKingAttacked();
+    private char rankChar(Square square) {
+        return square.name().charAt(1);
     }
 
-    public String getCurrentTurn(String fen) {
-        Board board = createBoard(fen);
-        return board.getSideToMove().name();
+    private String sanSymbol(PieceType type) {
+        switch (type) {
+            case KNIGHT:
+                return "N";
+            case BISHOP:
+                return "B";
+            case ROOK:
+                return "R";
+            case QUEEN:
+                return "Q";
+            case KING:
+                return "K";
+            default:
+                return "";
+        }
     }
 }
@@ -0,0 +1,79 @@
+package com.indichess.matchservice.service;
+
+import com.indichess.common.dto.GameDeltaDTO;
+import com.indichess.common.dto.GameStateDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.indichess.matchservice.model.Game;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pushes game updates to the players subscribed to {@code /topic/game/{id}}.
+ * Deltas are published from the game's lane, so subscribers receive them in
+ * sequence order. With the in-process broker a delta is serialized once and
+ * handed to {@link GameBroadcaster}, which writes the same frame to every
+ * subscriber on this node.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GameEventPublisher {
+    private final SimpMessagingTemplate messagingTemplate;
+    private final GameBroadcaster gameBroadcaster;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Publishes the state of a game after a move, or after a status change
+     * without a move when {@code uci} is null.
+     */
+    public void publishDelta(Game game, String uci, String san) {
+        GameDeltaDTO delta = GameDeltaDTO.builder()
+                .type("DELTA")
+                .gameId(game.getId())
+                .seq(game.getPlyCount())
+                .lastMove(uci)
+                .san(san)
+                .currentTurn(game.getCurrentTurn())
+                .whiteTimeRemaining(game.getWhiteTimeRemaining())
+                .blackTimeRemaining(game.getBlackTimeRemaining())
+                .status(game.getStatus().toString())
+                .statusMessage(game.getStatusMessage())
+                .build();
+        if (!gameBroadcaster.isEnabled()) {
+            messagingTemplate.convertAndSend(topicOf(game.getId()), delta);
+            return;
+        }
+        try {
+            gameBroadcaster.broadcast(topicOf(game.getId()), objectMapper.writeValueAsBytes(delta));
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize delta of game {}", game.getId(), e);
+        }
+    }
+
+    /**
+     * Tells the session that sent a rejected move why, on its own
+     * {@code /user/queue/errors}. Errors stay off the game topic, where they
+     * would reach every player and could be coalesced with the deltas.
+     */
+    public void publishError(String sessionId, String message) {
+        GameStateDTO errorState = GameStateDTO.builder()
+                .type("ERROR")
+                .status("ERROR")
+                .statusMessage(message)
+                .build();
+        // Addressed by session id, so it also reaches sessions without an authenticated user
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(sessionId, "/queue/errors", errorState, headers.getMessageHeaders());
+    }
+
+    private String topicOf(Long gameId) {
+        return "/topic/game/" + gameId;
+    }
+}
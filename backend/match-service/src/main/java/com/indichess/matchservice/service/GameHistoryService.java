@@ -0,0 +1,110 @@
+package com.indichess.matchservice.service;
+
+import com.indichess.common.dto.GameHistoryDTO;
+import com.indichess.matchservice.repository.ArchivedGameRepository;
+import com.indichess.matchservice.repository.GameHistoryView;
+import com.indichess.matchservice.repository.GameRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Pages through a player's games newest first by keyset on (created_at, id).
+ * Games as white and as black, live and archived, are read by four index range
+ * scans of at most one page each and merged, so a page costs the same however
+ * many games the player has. The cursor stays valid while new games are added
+ * and while games move to the archive.
+ */
+@Service
+@RequiredArgsConstructor
+public class GameHistoryService {
+    private static final Comparator<GameHistoryView> NEWEST_FIRST = Comparator
+            .comparing(GameHistoryView::getCreatedAt)
+            .thenComparing(GameHistoryView::getId)
+            .reversed();
+
+    // Sorts after every real game, so the first page starts from the newest
+    private static final LocalDateTime FIRST_PAGE_CREATED_AT = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final GameRepository gameRepository;
+    private final ArchivedGameRepository archivedGameRepository;
+
+    @Value("${match.history.max-page-size:100}")
+    private int maxPageSize;
+
+    public GameHistoryDTO getHistory(Long playerId, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        LocalDateTime createdAt = FIRST_PAGE_CREATED_AT;
+        long id = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                        .split("_", 2);
+                createdAt = LocalDateTime.parse(parts[0]);
+                id = Long.parseLong(parts[1]);
+            } catch (DateTimeParseException | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid history cursor");
+            }
+        }
+
+        // One extra row tells whether another page follows
+        Pageable page = PageRequest.of(0, size + 1);
+        List<GameHistoryView> rows = new ArrayList<>(
+                gameRepository.findHistoryAsWhite(playerId, createdAt, id, page));
+        rows.addAll(gameRepository.findHistoryAsBlack(playerId, createdAt, id, page));
+        rows.addAll(archivedGameRepository.findHistoryAsWhite(playerId, createdAt, id, page));
+        rows.addAll(archivedGameRepository.findHistoryAsBlack(playerId, createdAt, id, page));
+        rows.sort(NEWEST_FIRST);
+
+        boolean more = rows.size() > size;
+        List<GameHistoryView> games = more ? rows.subList(0, size) : rows;
+        List<GameHistoryDTO.Entry> entries = new ArrayList<>(games.size());
+        for (GameHistoryView row : games) {
+            entries.add(toEntry(row));
+        }
+        GameHistoryView last = games.isEmpty() ? null : games.get(games.size() - 1);
+        return GameHistoryDTO.builder()
+                .games(entries)
+                .nextCursor(more ? encodeCursor(last) : null)
+                .build();
+    }
+
+    private GameHistoryDTO.Entry toEntry(GameHistoryView row) {
+        return GameHistoryDTO.Entry.builder()
+                .gameId(row.getId())
+                .color(row.getColor())
+                .opponentName(row.getOpponentName())
+                .status(row.getStatus().name())
+                .result(row.getResult())
+                .outcome(outcome(row.getResult(), row.getColor()))
+                .timeControl(row.getTimeControl() != null ? row.getTimeControl().name() : null)
+                .playedAt(row.getCreatedAt())
+                .build();
+    }
+
+    private static String outcome(String result, String color) {
+        if (result == null) {
+            return null;
+        }
+        if ("1/2-1/2".equals(result)) {
+            return "DRAW";
+        }
+        boolean whiteWon = "1-0".equals(result);
+        return whiteWon == "WHITE".equals(color) ? "WIN" : "LOSS";
+    }
+
+    private static String encodeCursor(GameHistoryView row) {
+        String raw = row.getCreatedAt() + "_" + row.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,65 @@
+package com.indichess.matchservice.service;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.indichess.common.codec.GameRecordReader;
+import com.indichess.common.codec.GameRecordWriter;
+import com.indichess.matchservice.model.Game;
+import com.indichess.matchservice.model.Move;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Rebuilds positions of a stored game on demand. The board only ever moves as far
+ * as the requested ply, stepping forward with doMove and back with undoMove, so
+ * walking through a game one ply at a time costs one move per step.
+ */
+public class GameReplay {
+    private final GameRecordReader record;
+    private final GameEngineService gameEngineService;
+    private final Board board;
+    private int ply;
+
+    public GameReplay(GameRecordReader record, GameEngineService gameEngineService) {
+        this.record = record;
+        this.gameEngineService = gameEngineService;
+        this.board = gameEngineService.createBoard(
+                record.getStartFen() != null ? record.getStartFen() : gameEngineService.getInitialFen());
+    }
+
+    public int getPlyCount() {
+        return record.getPlyCount();
+    }
+
+    public String fenAt(int targetPly) {
+        if (targetPly < 0 || targetPly > record.getPlyCount()) {
+            throw new IndexOutOfBoundsException("Ply " + targetPly + " of " + record.getPlyCount());
+        }
+        while (ply < targetPly) {
+            gameEngineService.playUci(board, record.uciAt(ply++));
+        }
+        while (ply > targetPly) {
+            board.undoMove();
+            ply--;
+        }
+        return board.getFen();
+    }
+
+    /**
+     * Encodes a game that predates move records (or is still being played) from
+     * its move rows; clock deltas are taken from the row timestamps.
+     */
+    public static GameRecordWriter recordOf(Game game, List<Move> moves) {
+        GameRecordWriter writer = new GameRecordWriter(null);
+        LocalDateTime previous = game.getCreatedAt();
+        for (Move move : moves) {
+            long delta = previous != null && move.getCreatedAt() != null
+                    ? Duration.between(previous, move.getCreatedAt()).toMillis()
+                    : 0;
+            writer.append(move.getNotation(), delta);
+            previous = move.getCreatedAt();
+        }
+        return writer;
+    }
+}
@@ -1,91 +1,94 @@
 package com.indichess.matchservice.service;
 
+import com.indichess.common.codec.GameRecordReader;
 import com.indichess.common.dto.UserDTO;
 import com.indichess.common.exception.GameStateException;
-import com.indichess.common.exception.InvalidMoveException;
 import com.indichess.common.exception.ResourceNotFoundException;
-import com.indichess.matchservice.client.UserServiceClient;
+import com.indichess.matchservice.client.MatchNodeClient;
 import com.indichess.matchservice.model.Game;
 import com.indichess.matchservice.model.GameStatus;
 import com.indichess.matchservice.model.Move;
 import com.indichess.matchservice.model.TimeControl;
+import com.indichess.matchservice.repository.ArchivedGameRepository;
 import com.indichess.matchservice.repository.GameRepository;
+import com.indichess.matchservice.repository.MoveRepository;
+import com.indichess.matchservice.repository.RunningClockView;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class GameService {
     private final GameRepository gameRepository;
+    private final ArchivedGameRepository archivedGameRepository;
+    private final MoveRepository moveRepository;
     private final GameEngineService gameEngineService;
-    private final UserServiceClient userServiceClient;
-
-    // In-memory waiting queue (for simple matchmaking)
-    private final ConcurrentHashMap<String, Long> waitingPlayers = new ConcurrentHashMap<>();
-
-    // Track matched games for players who were waiting so they can be notified via
-    // polling
-    private final ConcurrentHashMap<String, Long> matchedGames = new ConcurrentHashMap<>();
-
-    @Transactional
-    public Map<String, Object> createOrJoinGame(String username, TimeControl timeControl) {
-        UserDTO user = userServiceClient.getUserByUsername(username);
-        if (user == null) {
-            throw new ResourceNotFoundException("User", "username", username);
-        }
-
-        // Check if already waiting
-        if (waitingPlayers.containsKey(username)) {
-            return Map.of("matchId", -1L, "message", "Already in queue");
-        }
-
-        // Try to find a waiting player
-        String opponent = waitingPlayers.keySet().stream()
-                .filter(name -> !name.equals(username))
-                .findFirst()
-                .orElse(null);
-
-        if (opponent != null) {
-            // Match found! Create game
-            UserDTO opponentUser = userServiceClient.getUserByUsername(opponent);
-            waitingPlayers.remove(opponent);
-
-            Game game = createGame(user, opponentUser, timeControl);
-
-            // Store the game ID so the opponent (who is polling) can find it
-            matchedGames.put(opponent, game.getId());
-
-            return Map.of("matchId", game.getId(), "message", "Match found");
-        }
-
-        // No opponent found, add to queue
-        waitingPlayers.put(username, System.currentTimeMillis());
-        return Map.of("matchId", -1L, "message", "Waiting for opponent");
+    private final LiveGameRegistry liveGameRegistry;
+    private final GameWriteBehindService gameWriteBehindService;
+    private final GameCommandDispatcher gameCommandDispatcher;
+    private final GameClockScheduler gameClockScheduler;
+    private final GameEventPublisher gameEventPublisher;
+    private final ClusterMembership clusterMembership;
+    private final MatchNodeClient matchNodeClient;
+    private final PositionExplorerService positionExplorerService;
+
+    @PostConstruct
+    void registerClockHandler() {
+        gameClockScheduler.onExpiry(this::checkFlag);
     }
 
-    public Map<String, Object> checkForMatch(String username) {
-        // First check if a match was found for this user while they were waiting
-        if (matchedGames.containsKey(username)) {
-            Long gameId = matchedGames.remove(username);
-            return Map.of("matchId", gameId, "message", "Match found");
+    // Games that were running when the node stopped, or that moved to this node,
+    // still need their flags watched
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeClocks() {
+        int resumed = 0;
+        for (RunningClockView clock : gameRepository.findClocksByStatus(GameStatus.IN_PROGRESS)) {
+            if (!clusterMembership.isOwner(clock.getId())) {
+                continue;
+            }
+            long remaining = "WHITE".equals(clock.getCurrentTurn())
+                    ? clock.getWhiteTimeRemaining()
+                    : clock.getBlackTimeRemaining();
+            gameClockScheduler.schedule(clock.getId(), clock.getLastMoveTime() + remaining);
+            resumed++;
         }
+        log.info("Resumed {} running clocks", resumed);
+    }
 
-        if (waitingPlayers.containsKey(username)) {
-            return Map.of("matchId", -1L, "message", "Still waiting");
+    /**
+     * Hands live games that now belong to another node back to the database and
+     * picks up the clocks of games that moved here. Their state is reloaded by
+     * the new owner on first access.
+     */
+    @EventListener
+    public void onOwnershipChanged(ClusterMembership.OwnershipChangedEvent event) {
+        for (LiveGame live : liveGameRegistry.all()) {
+            if (!clusterMembership.isOwner(live.getId())) {
+                gameCommandDispatcher.submit(live.getId(), () -> release(live));
+            }
         }
-        return Map.of("matchId", -2L, "message", "Not in queue");
+        resumeClocks();
     }
 
-    public void cancelWaiting(String username) {
-        waitingPlayers.remove(username);
-        matchedGames.remove(username);
+    // Runs on the game's lane: stops the clock, writes the game through and drops it from memory.
+    // If the write fails the game stays live and dirty, and is evicted once a periodic flush succeeds.
+    private Void release(LiveGame live) {
+        gameClockScheduler.cancel(live.getId());
+        live.markDirty();
+        live.markReleased();
+        if (gameWriteBehindService.flush(live)) {
+            liveGameRegistry.evict(live.getId());
+        }
+        return null;
     }
 
-    @Transactional
     public Game createGame(UserDTO whitePlayer, UserDTO blackPlayer, TimeControl timeControl) {
         long initialTime = timeControl.getInitialTimeSeconds() * 1000L;
 
@@ -104,13 +107,30 @@ public class GameService {
                 .lastMoveTime(System.currentTimeMillis())
                 .build();
 
-        return gameRepository.save(game);
+        Game saved = gameRepository.save(game);
+        if (!clusterMembership.isOwner(saved.getId())) {
+            matchNodeClient.adoptGame(clusterMembership.ownerOf(saved.getId()), saved.getId());
+            return saved;
+        }
+        scheduleFlag(saved);
+        return liveGameRegistry.register(saved).snapshot();
+    }
+
+    // Called on the owning node for a game created by another node
+    public void adoptGame(Long gameId) {
+        gameCommandDispatcher.execute(gameId, () -> {
+            scheduleFlag(liveGameRegistry.getOrLoad(gameId).getGame());
+            return null;
+        });
     }
 
-    @Transactional
     public Game makeMove(Long gameId, String username, String from, String to, String promotion) {
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new ResourceNotFoundException("Game", "id", gameId));
+        return gameCommandDispatcher.execute(gameId, () -> applyMove(gameId, username, from, to, promotion));
+    }
+
+    private Game applyMove(Long gameId, String username, String from, String to, String promotion) {
+        LiveGame live = liveGameRegistry.getOrLoad(gameId);
+        Game game = live.getGame();
 
         // Validate game state
         if (game.getStatus() != GameStatus.IN_PROGRESS) {
@@ -134,75 +154,157 @@ public class GameService {
         long now = System.currentTimeMillis();
         long elapsed = now - game.getLastMoveTime();
 
-        if (isWhite) {
-            game.setWhiteTimeRemaining(game.getWhiteTimeRemaining() - elapsed);
-            if (game.getWhiteTimeRemaining() <= 0) {
-                game.setStatus(GameStatus.COMPLETED);
-                game.setStatusMessage("Black wins on time");
-                return gameRepository.save(game);
-            }
-        } else {
-            game.setBlackTimeRemaining(game.getBlackTimeRemaining() - elapsed);
-            if (game.getBlackTimeRemaining() <= 0) {
-                game.setStatus(GameStatus.COMPLETED);
-                game.setStatusMessage("White wins on time");
-                return gameRepository.save(game);
-            }
+        if (remainingTime(game, now) <= 0) {
+            return flag(live);
         }
 
+        // Make the move; an illegal move throws before any clock is touched
+        MoveResult result = gameEngineService.evaluateMove(live.getBoard(), live.getLegalMoves(),
+                from, to, promotion);
+
         // Save previous FEN for undo
         game.setPreviousFen(game.getFen());
-
-        // Make the move
-        String newFen;
-        try {
-            newFen = gameEngineService.makeMove(game.getFen(), from, to, promotion);
-        } catch (Exception e) {
-            throw new InvalidMoveException("Invalid move: " + e.getMessage());
+        game.setFen(result.getFen());
+        long increment = game.getTimeControl().getIncrementSeconds() * 1000L;
+        if (isWhite) {
+            game.setWhiteTimeRemaining(game.getWhiteTimeRemaining() - elapsed + increment);
+        } else {
+            game.setBlackTimeRemaining(game.getBlackTimeRemaining() - elapsed + increment);
         }
-
-        game.setFen(newFen);
         game.setLastMoveTime(now);
-        game.setCurrentTurn(isWhite ? "BLACK" : "WHITE");
+        game.setCurrentTurn(result.getSideToMove());
+        live.setLegalMoves(result.getLegalMoves());
 
         // Record move
         Move move = Move.builder()
-                .game(game)
                 .playerId(isWhite ? game.getWhitePlayerId() : game.getBlackPlayerId())
                 .playerName(username)
-                .notation(from + to + (promotion != null ? promotion : ""))
-                .fenAfter(newFen)
-                .moveNumber(game.getMoves().size() + 1)
+                .notation(result.getUci())
+                .fenAfter(result.getFen())
+                .moveNumber(live.nextPly())
                 .build();
-        game.getMoves().add(move);
-
-        // Update PGN
-        String currentPgn = game.getPgn() != null ? game.getPgn() : "";
-        game.setPgn(currentPgn + " " + move.getNotation());
+        live.appendMove(move, elapsed);
 
         // Check game end conditions
-        if (gameEngineService.isCheckmate(newFen)) {
+        if (result.isCheckmate()) {
             game.setStatus(GameStatus.COMPLETED);
+            game.setResult(isWhite ? "1-0" : "0-1");
             game.setStatusMessage(isWhite ? "White wins by checkmate" : "Black wins by checkmate");
-        } else if (gameEngineService.isStalemate(newFen)) {
-            game.setStatus(GameStatus.DRAW);
-            game.setStatusMessage("Draw by stalemate");
-        } else if (gameEngineService.isDraw(newFen)) {
+        } else if (result.getDrawReason() != null) {
             game.setStatus(GameStatus.DRAW);
-            game.setStatusMessage("Draw");
+            game.setResult("1/2-1/2");
+            game.setStatusMessage(result.getDrawReason().getMessage());
         }
 
-        return gameRepository.save(game);
+        gameEventPublisher.publishDelta(game, result.getUci(), result.getSan());
+        if (game.getStatus() != GameStatus.IN_PROGRESS) {
+            return finish(live);
+        }
+        scheduleFlag(game);
+        return live.snapshot();
+    }
+
+    /**
+     * Called by the clock scheduler when the side to move may have run out of
+     * time. The check runs on the game's lane, and a flagged game is ended and
+     * pushed to its players without waiting for anyone to move.
+     */
+    public void checkFlag(Long gameId) {
+        gameCommandDispatcher.submit(gameId, () -> applyFlagCheck(gameId))
+                .exceptionally(e -> {
+                    log.error("Flag check of game {} failed", gameId, e);
+                    return null;
+                });
+    }
+
+    private Game applyFlagCheck(Long gameId) {
+        LiveGame live;
+        try {
+            live = liveGameRegistry.getOrLoad(gameId);
+        } catch (GameStateException | ResourceNotFoundException e) {
+            return null;
+        }
+        Game game = live.getGame();
+        if (game.getStatus() != GameStatus.IN_PROGRESS) {
+            return null;
+        }
+        if (remainingTime(game, System.currentTimeMillis()) > 0) {
+            scheduleFlag(game);
+            return null;
+        }
+        return flag(live);
+    }
+
+    // Time left for the side to move, as of the given instant
+    private long remainingTime(Game game, long now) {
+        long remaining = "WHITE".equals(game.getCurrentTurn())
+                ? game.getWhiteTimeRemaining()
+                : game.getBlackTimeRemaining();
+        return remaining - (now - game.getLastMoveTime());
+    }
+
+    private void scheduleFlag(Game game) {
+        gameClockScheduler.schedule(game.getId(), game.getLastMoveTime() + remainingTime(game, game.getLastMoveTime()));
+    }
+
+    private Game flag(LiveGame live) {
+        Game game = live.getGame();
+        boolean whiteFlagged = "WHITE".equals(game.getCurrentTurn());
+        if (whiteFlagged) {
+            game.setWhiteTimeRemaining(0L);
+        } else {
+            game.setBlackTimeRemaining(0L);
+        }
+        game.setStatus(GameStatus.COMPLETED);
+        game.setResult(whiteFlagged ? "0-1" : "1-0");
+        game.setStatusMessage(whiteFlagged ? "Black wins on time" : "White wins on time");
+        gameEventPublisher.publishDelta(game, null, null);
+        return finish(live);
     }
 
     public Game getGame(Long gameId) {
+        return liveGameRegistry.find(gameId)
+                .map(live -> gameCommandDispatcher.execute(gameId, live::snapshot))
+                .orElseGet(() -> loadStored(gameId));
+    }
+
+    // A game that is not live, from the live table or, once archived, from the archive
+    private Game loadStored(Long gameId) {
         return gameRepository.findById(gameId)
+                .or(() -> archivedGameRepository.findById(gameId).map(GameArchiveCodec::fromArchive))
                 .orElseThrow(() -> new ResourceNotFoundException("Game", "id", gameId));
     }
 
-    @Transactional
+    public LegalMoveTable getLegalMoves(Long gameId) {
+        return gameCommandDispatcher.execute(gameId, () -> liveGameRegistry.getOrLoad(gameId).getLegalMoves());
+    }
+
+    public String getPositionAt(Long gameId, int ply) {
+        byte[] record = liveGameRegistry.find(gameId)
+                .map(live -> gameCommandDispatcher.execute(gameId, live::encodeRecord))
+                .orElse(null);
+
+        if (record == null) {
+            Game game = loadStored(gameId);
+            record = game.getMoveRecord() != null
+                    ? game.getMoveRecord()
+                    : GameReplay.recordOf(game, moveRepository.findByGameIdOrderByMoveNumberAsc(gameId)).toByteArray();
+        }
+
+        GameReplay replay = new GameReplay(new GameRecordReader(record), gameEngineService);
+        if (ply < 0 || ply > replay.getPlyCount()) {
+            throw new GameStateException("Ply must be between 0 and " + replay.getPlyCount());
+        }
+        return replay.fenAt(ply);
+    }
+
     public Game resignGame(Long gameId, String username) {
-        Game game = getGame(gameId);
+        return gameCommandDispatcher.execute(gameId, () -> applyResignation(gameId, username));
+    }
+
+    private Game applyResignation(Long gameId, String username) {
+        LiveGame live = liveGameRegistry.getOrLoad(gameId);
+        Game game = live.getGame();
 
         if (game.getStatus() != GameStatus.IN_PROGRESS) {
             throw new GameStateException("Game is not in progress");
@@ -210,8 +312,17 @@ public class GameService {
 
         boolean isWhite = username.equals(game.getWhitePlayerName());
         game.setStatus(GameStatus.COMPLETED);
+        game.setResult(isWhite ? "0-1" : "1-0");
         game.setStatusMessage(isWhite ? "Black wins by resignation" : "White wins by resignation");
+        gameEventPublisher.publishDelta(game, null, null);
+
+        return finish(live);
+    }
 
-        return gameRepository.save(game);
+    // Runs on the game's lane. Finished games are written through immediately and leave the registry
+    private Game finish(LiveGame live) {
+        release(live);
+        positionExplorerService.onGameFinished(live.getGame(), live.encodeRecord());
+        return live.snapshot();
     }
 }
@@ -0,0 +1,129 @@
+package com.indichess.matchservice.service;
+
+import com.indichess.matchservice.model.Game;
+import com.indichess.matchservice.model.GameStatus;
+import com.indichess.matchservice.model.Move;
+import com.indichess.matchservice.repository.GameRepository;
+import com.indichess.matchservice.repository.MoveRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Persists live games in the background. Dirty games are written in batches at a
+ * fixed interval, which bounds how stale the database can get; finished games are
+ * flushed immediately through {@link #flush(LiveGame)}. Moves are append-only
+ * inserts and the game row update touches fixed-size columns only, without
+ * reading the row first, so a flush costs the same at move 5 and move 250.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GameWriteBehindService {
+    private final LiveGameRegistry liveGameRegistry;
+    private final GameRepository gameRepository;
+    private final MoveRepository moveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final GameCommandDispatcher gameCommandDispatcher;
+
+    @Scheduled(fixedDelayString = "${match.live-games.flush-interval-ms:250}")
+    public void flushDirty() {
+        List<LiveGame> dirty = liveGameRegistry.all().stream()
+                .filter(LiveGame::isDirty)
+                .toList();
+        if (!dirty.isEmpty() && write(dirty)) {
+            // Released games whose final write failed earlier can leave memory now
+            for (LiveGame live : dirty) {
+                gameCommandDispatcher.submit(live.getId(), () -> {
+                    if (live.isReleased() && !live.isDirty()) {
+                        liveGameRegistry.evict(live.getId());
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * Writes one game through. Returns false if the write failed, in which case
+     * the game is left dirty and the next periodic flush retries it.
+     */
+    public boolean flush(LiveGame live) {
+        return write(List.of(live));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushDirty();
+    }
+
+    private boolean write(List<LiveGame> games) {
+        // Drain on each game's lane so a snapshot never sees a half-applied move
+        List<CompletableFuture<LiveGame.FlushBatch>> drains = games.stream()
+                .map(live -> gameCommandDispatcher.submit(live.getId(), live::drain))
+                .toList();
+        List<LiveGame.FlushBatch> batches = drains.stream()
+                .map(CompletableFuture::join)
+                .toList();
+
+        // The final flush runs on the game's lane while a periodic flush of the same game may
+        // still be committing an older snapshot; waiting for it keeps that snapshot from
+        // landing on top of this one. Moves it failed to write go out with this batch.
+        List<List<Move>> moves = new ArrayList<>();
+        for (LiveGame.FlushBatch batch : batches) {
+            List<Move> gameMoves = new ArrayList<>(batch.previous().join());
+            gameMoves.addAll(batch.moves());
+            moves.add(gameMoves);
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(batches, moves));
+            batches.forEach(batch -> batch.done().complete(List.of()));
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush of {} games failed, will retry", batches.size(), e);
+            for (LiveGame live : games) {
+                gameCommandDispatcher.submit(live.getId(), () -> {
+                    live.markDirty();
+                    return null;
+                });
+            }
+            return false;
+        } finally {
+            // No-op after success; otherwise hands the unwritten moves to the next batch
+            for (int i = 0; i < batches.size(); i++) {
+                batches.get(i).done().complete(moves.get(i));
+            }
+        }
+    }
+
+    private void persist(List<LiveGame.FlushBatch> batches, List<List<Move>> moves) {
+        List<Move> inserts = new ArrayList<>();
+        for (int i = 0; i < batches.size(); i++) {
+            Game game = batches.get(i).game();
+            gameRepository.updateLiveState(game);
+            // The PGN only grows during play; write it once, when the game is over.
+            // The compact record then replaces the per-move rows.
+            if (game.getStatus() != GameStatus.IN_PROGRESS) {
+                gameRepository.updateFinalRecord(game.getId(), game.getPgn(), game.getMoveRecord(),
+                        game.getResult());
+                moveRepository.deleteByGameId(game.getId());
+                continue;
+            }
+
+            Game reference = gameRepository.getReferenceById(game.getId());
+            for (Move move : moves.get(i)) {
+                move.setGame(reference);
+                inserts.add(move);
+            }
+        }
+        moveRepository.saveAll(inserts);
+    }
+}
@@ -0,0 +1,71 @@
+package com.indichess.matchservice.service;
+
+import com.github.bhlangonijr.chesslib.Square;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Legal moves of one position as a from-square to destination-bitboard table.
+ * Built once per position by the engine; immutable afterwards, so it can be read
+ * from any thread.
+ */
+public final class LegalMoveTable {
+    private final String fen;
+    private final long[] destinations = new long[64];
+    private final boolean empty;
+
+    // JSON view for the legal-moves endpoint, built on first request
+    private volatile Map<String, List<String>> view;
+
+    private LegalMoveTable(String fen, List<Move> moves) {
+        this.fen = fen;
+        for (Move move : moves) {
+            destinations[move.getFrom().ordinal()] |= move.getTo().getBitboard();
+        }
+        this.empty = moves.isEmpty();
+    }
+
+    public static LegalMoveTable of(String fen, List<Move> moves) {
+        return new LegalMoveTable(fen, moves);
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    public boolean allows(Square from, Square to) {
+        return (destinations[from.ordinal()] & to.getBitboard()) != 0;
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    public Map<String, List<String>> asMap() {
+        Map<String, List<String>> result = view;
+        if (result == null) {
+            result = new LinkedHashMap<>();
+            for (int from = 0; from < 64; from++) {
+                long targets = destinations[from];
+                if (targets == 0) {
+                    continue;
+                }
+                List<String> squares = new ArrayList<>(Long.bitCount(targets));
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    squares.add(Square.squareAt(to).name().toLowerCase());
+                    targets &= targets - 1;
+                }
+                result.put(Square.squareAt(from).name().toLowerCase(), squares);
+            }
+            result = Collections.unmodifiableMap(result);
+            view = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+package com.indichess.matchservice.service;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.indichess.common.codec.GameRecordWriter;
+import com.indichess.matchservice.model.Game;
+import com.indichess.matchservice.model.GameStatus;
+import com.indichess.matchservice.model.Move;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Authoritative in-memory state of an IN_PROGRESS game. Moves are applied here
+ * first and persisted later by {@link GameWriteBehindService}. The board is
+ * advanced incrementally and carries the position history of the whole game.
+ * Not thread-safe: all access goes through the game's {@link GameCommandDispatcher} lane.
+ */
+@Getter
+public class LiveGame {
+    private final Game game;
+    private final Board board;
+    private volatile LegalMoveTable legalMoves;
+    private boolean dirty;
+
+    // Set once the game is done on this node (finished or moved away); evicted after its last write
+    private boolean released;
+
+    // Completes when the last drained batch is done, with the moves it failed to write
+    @Getter(AccessLevel.NONE)
+    private CompletableFuture<List<Move>> lastFlush = CompletableFuture.completedFuture(List.of());
+
+    // Move rows not yet written to the database
+    private final List<Move> pendingMoves = new ArrayList<>();
+
+    // Appended per move; Game.pgn is only materialized on read and when the game ends
+    @Getter(AccessLevel.NONE)
+    private final StringBuilder pgn;
+
+    // Compact encoding of the moves and clock usage, stored when the game ends
+    @Getter(AccessLevel.NONE)
+    private final GameRecordWriter record;
+
+    public LiveGame(Game game, Board board, LegalMoveTable legalMoves, String pgn, GameRecordWriter record) {
+        this.game = game;
+        this.board = board;
+        this.legalMoves = legalMoves;
+        this.pgn = new StringBuilder(pgn != null ? pgn : "");
+        this.record = record;
+    }
+
+    public Long getId() {
+        return game.getId();
+    }
+
+    public int nextPly() {
+        game.setPlyCount(game.getPlyCount() + 1);
+        return game.getPlyCount();
+    }
+
+    public void setLegalMoves(LegalMoveTable legalMoves) {
+        this.legalMoves = legalMoves;
+    }
+
+    public void appendMove(Move move, long clockDeltaMillis) {
+        pendingMoves.add(move);
+        pgn.append(' ').append(move.getNotation());
+        record.append(move.getNotation(), clockDeltaMillis);
+        dirty = true;
+    }
+
+    public byte[] encodeRecord() {
+        return record.toByteArray();
+    }
+
+    public void markDirty() {
+        dirty = true;
+    }
+
+    public void markReleased() {
+        released = true;
+    }
+
+    public Game snapshot() {
+        return game.toBuilder().pgn(pgn.toString()).build();
+    }
+
+    /**
+     * Takes everything that has changed since the last flush and clears the
+     * dirty state. Must run on the game's lane.
+     * <p>
+     * Batches are chained: a batch is written only once the previous one is
+     * done, then completes its own {@code done} future with whatever moves it
+     * failed to write, which the next batch writes instead. A game's batches
+     * thus reach the database in drain order, and a failed write never puts
+     * older moves back behind a newer drain.
+     */
+    public FlushBatch drain() {
+        // Materializing the PGN and record is O(game length), so only do it for the final flush
+        Game state = game.getStatus() == GameStatus.IN_PROGRESS
+                ? game.toBuilder().build()
+                : game.toBuilder().pgn(pgn.toString()).moveRecord(encodeRecord()).build();
+        FlushBatch batch = new FlushBatch(state, new ArrayList<>(pendingMoves), lastFlush, new CompletableFuture<>());
+        lastFlush = batch.done();
+        pendingMoves.clear();
+        dirty = false;
+        return batch;
+    }
+
+    public record FlushBatch(Game game, List<Move> moves, CompletableFuture<List<Move>> previous,
+            CompletableFuture<List<Move>> done) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.indichess.matchservice.service;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.indichess.common.codec.GameRecordWriter;
+import com.indichess.common.exception.GameStateException;
+import com.indichess.common.exception.ResourceNotFoundException;
+import com.indichess.matchservice.model.Game;
+import com.indichess.matchservice.model.GameStatus;
+import com.indichess.matchservice.model.Move;
+import com.indichess.matchservice.repository.ArchivedGameRepository;
+import com.indichess.matchservice.repository.GameRepository;
+import com.indichess.matchservice.repository.MoveRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds every IN_PROGRESS game this node owns. Games are loaded lazily on
+ * first access (e.g. after a restart or a change of owner) by replaying the
+ * moves table, and evicted once they finish or move to another node.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiveGameRegistry {
+    private final GameRepository gameRepository;
+    private final ArchivedGameRepository archivedGameRepository;
+    private final MoveRepository moveRepository;
+    private final GameEngineService gameEngineService;
+    private final ClusterMembership clusterMembership;
+
+    private final ConcurrentHashMap<Long, LiveGame> liveGames = new ConcurrentHashMap<>();
+
+    public LiveGame register(Game game) {
+        Board board = gameEngineService.createBoard(game.getFen());
+        LiveGame live = new LiveGame(game, board, gameEngineService.legalMoves(board), game.getPgn(),
+                new GameRecordWriter(null));
+        liveGames.put(game.getId(), live);
+        return live;
+    }
+
+    public Optional<LiveGame> find(Long gameId) {
+        return Optional.ofNullable(liveGames.get(gameId));
+    }
+
+    public LiveGame getOrLoad(Long gameId) {
+        LiveGame live = liveGames.get(gameId);
+        if (live != null) {
+            return live;
+        }
+
+        // Only the owning node may hold a game in memory
+        if (!clusterMembership.isOwner(gameId)) {
+            throw new GameStateException("Game " + gameId + " is served by another node");
+        }
+
+        Game game = gameRepository.findById(gameId).orElse(null);
+        if (game == null) {
+            if (archivedGameRepository.existsById(gameId)) {
+                throw new GameStateException("Game is not in progress");
+            }
+            throw new ResourceNotFoundException("Game", "id", gameId);
+        }
+        if (game.getStatus() != GameStatus.IN_PROGRESS) {
+            throw new GameStateException("Game is not in progress");
+        }
+
+        return liveGames.computeIfAbsent(gameId, id -> restore(game));
+    }
+
+    private LiveGame restore(Game game) {
+        List<Move> log = moveRepository.findByGameIdOrderByMoveNumberAsc(game.getId());
+        List<String> moves = log.stream()
+                .map(Move::getNotation)
+                .toList();
+
+        Board board;
+        try {
+            board = gameEngineService.replay(moves);
+        } catch (RuntimeException e) {
+            board = null;
+        }
+        // Moves still waiting in a lost write-behind batch leave the table behind
+        // games.fen; fall back to the stored position, without repetition history
+        if (board == null || !board.getFen().equals(game.getFen())) {
+            log.warn("Could not replay moves of game {}, restoring from FEN", game.getId());
+            board = gameEngineService.createBoard(game.getFen());
+        }
+        // games.pgn is only written when a game ends, so rebuild it from the log
+        StringBuilder pgn = new StringBuilder();
+        moves.forEach(uci -> pgn.append(' ').append(uci));
+        return new LiveGame(game, board, gameEngineService.legalMoves(board), pgn.toString(),
+                GameReplay.recordOf(game, log));
+    }
+
+    public void evict(Long gameId) {
+        liveGames.remove(gameId);
+    }
+
+    public Collection<LiveGame> all() {
+        return liveGames.values();
+    }
+}
@@ -0,0 +1,18 @@
+package com.indichess.matchservice.service;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class MatchResult {
+    private final Long gameId;
+    private final String opponent;
+    private final String color;
+    private final int queuePosition;
+    private final boolean alreadyQueued;
+
+    public boolean isMatched() {
+        return gameId != null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.indichess.matchservice.service;
+
+import com.indichess.common.dto.UserDTO;
+import com.indichess.matchservice.model.TimeControl;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A player waiting for an opponent. A ticket is claimed exactly once, either by
+ * the pairing that matches it or by the player leaving the queue.
+ */
+@Getter
+public class MatchTicket {
+    // Rating assumed for players whose profile predates ratings
+    static final int DEFAULT_RATING = 1200;
+
+    private final UserDTO user;
+    private final TimeControl timeControl;
+    private final long joinedAt;
+    private long sequence;
+
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    public MatchTicket(UserDTO user, TimeControl timeControl, long joinedAt) {
+        this.user = user;
+        this.timeControl = timeControl;
+        this.joinedAt = joinedAt;
+    }
+
+    public String getUsername() {
+        return user.getUsername();
+    }
+
+    public int getRating() {
+        return user.getRating() != null ? user.getRating() : DEFAULT_RATING;
+    }
+
+    public boolean claim() {
+        return claimed.compareAndSet(false, true);
+    }
+
+    public boolean isClaimed() {
+        return claimed.get();
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+}
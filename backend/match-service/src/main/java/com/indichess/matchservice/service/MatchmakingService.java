@@ -0,0 +1,232 @@
+package com.indichess.matchservice.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.indichess.common.dto.UserDTO;
+import com.indichess.matchservice.model.Game;
+import com.indichess.matchservice.model.TimeControl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pairs waiting players of similar strength, with one rating pool per time
+ * control. A new player is matched against the closest waiting player inside
+ * both players' search windows; a periodic sweep retries everyone as their
+ * windows widen with the time they have waited. The longer-waiting player
+ * plays white.
+ * <p>
+ * A waiting player learns about its game from {@code /user/queue/match-found}
+ * or, without a WebSocket, from a parked long-poll completed by
+ * {@link #awaitMatch}.
+ */
+@Slf4j
+@Service
+public class MatchmakingService {
+    private final GameService gameService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MatchmakingStats matchmakingStats;
+
+    private final Map<TimeControl, RatingPool> pools = new EnumMap<>(TimeControl.class);
+
+    // username -> ticket, so a player waits in at most one pool
+    private final ConcurrentHashMap<String, MatchTicket> waiting = new ConcurrentHashMap<>();
+
+    // Games created for players who were waiting, until they pick them up by polling. Players told
+    // through /user/queue/match-found never poll, so entries also expire once no poll can want them.
+    private final ConcurrentMap<String, Long> matchedGames;
+
+    // Parked long-polls, completed when the player is matched or leaves
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> matchWaiters = new ConcurrentHashMap<>();
+
+    public MatchmakingService(GameService gameService,
+            SimpMessagingTemplate messagingTemplate,
+            MatchmakingStats matchmakingStats,
+            @Value("${match.matchmaking.initial-window:100}") int initialWindow,
+            @Value("${match.matchmaking.widen-per-second:25}") int widenPerSecond,
+            @Value("${match.matchmaking.max-window:800}") int maxWindow,
+            @Value("${match.matchmaking.matched-game-ttl-seconds:60}") long matchedGameTtlSeconds) {
+        this.gameService = gameService;
+        this.messagingTemplate = messagingTemplate;
+        this.matchmakingStats = matchmakingStats;
+        this.matchedGames = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(matchedGameTtlSeconds))
+                .<String, Long>build()
+                .asMap();
+
+        SearchWindow window = new SearchWindow(initialWindow, widenPerSecond, maxWindow);
+        for (TimeControl timeControl : TimeControl.values()) {
+            pools.put(timeControl, new RatingPool(window));
+        }
+    }
+
+    public MatchResult join(UserDTO user, TimeControl timeControl) {
+        String username = user.getUsername();
+        matchedGames.remove(username);
+
+        long now = System.currentTimeMillis();
+        MatchTicket ticket = new MatchTicket(user, timeControl, now);
+        MatchTicket existing = waiting.putIfAbsent(username, ticket);
+        if (existing != null) {
+            return MatchResult.builder()
+                    .alreadyQueued(true)
+                    .queuePosition(positionOf(existing))
+                    .build();
+        }
+
+        RatingPool pool = pools.get(timeControl);
+        MatchTicket opponent = pool.pollOrOffer(ticket, now);
+        if (opponent == null) {
+            return MatchResult.builder()
+                    .queuePosition(pool.positionOf(ticket))
+                    .build();
+        }
+
+        ticket.claim();
+        Game game = pair(opponent, ticket, now, false);
+        return MatchResult.builder()
+                .gameId(game.getId())
+                .opponent(opponent.getUsername())
+                .color("black")
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${match.matchmaking.sweep-interval-ms:1000}")
+    public void widenSearch() {
+        long now = System.currentTimeMillis();
+        for (RatingPool pool : pools.values()) {
+            List<MatchTicket[]> pairs = pool.sweep(now);
+            for (MatchTicket[] pair : pairs) {
+                boolean firstWaitedLonger = pair[0].getJoinedAt() <= pair[1].getJoinedAt();
+                MatchTicket white = firstWaitedLonger ? pair[0] : pair[1];
+                MatchTicket black = firstWaitedLonger ? pair[1] : pair[0];
+                try {
+                    pair(white, black, now, true);
+                } catch (RuntimeException e) {
+                    log.error("Could not create game for {} and {}, both requeued",
+                            white.getUsername(), black.getUsername(), e);
+                }
+            }
+        }
+    }
+
+    public void leave(String username) {
+        MatchTicket ticket = waiting.remove(username);
+        if (ticket != null) {
+            pools.get(ticket.getTimeControl()).cancel(ticket);
+        }
+        matchedGames.remove(username);
+        wakeWaiter(username);
+    }
+
+    /**
+     * Completes once the player has a game to pick up or is no longer queued;
+     * immediately if either is already the case. All polls of a player share
+     * the returned future.
+     */
+    public CompletableFuture<Void> awaitMatch(String username) {
+        CompletableFuture<Void> waiter = matchWaiters.computeIfAbsent(username, key -> new CompletableFuture<>());
+        // Re-check after registering, so a match made meanwhile is not missed
+        if (matchedGames.containsKey(username) || !isQueued(username)) {
+            wakeWaiter(username);
+        }
+        return waiter;
+    }
+
+    /**
+     * Hands out a game created while the player was waiting, once.
+     */
+    public Optional<Long> takeMatchedGame(String username) {
+        return Optional.ofNullable(matchedGames.remove(username));
+    }
+
+    // True while the player waits, including while its game is being created
+    public boolean isQueued(String username) {
+        return waiting.containsKey(username);
+    }
+
+    public Optional<Integer> getQueuePosition(String username) {
+        MatchTicket ticket = waiting.get(username);
+        return ticket == null || ticket.isClaimed() ? Optional.empty() : Optional.of(positionOf(ticket));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> waitingByTimeControl = new LinkedHashMap<>();
+        pools.forEach((timeControl, pool) -> waitingByTimeControl.put(timeControl.name(), pool.size()));
+        return Map.of(
+                "waiting", waitingByTimeControl,
+                "ratingGapBands", matchmakingStats.snapshot());
+    }
+
+    private int positionOf(MatchTicket ticket) {
+        return pools.get(ticket.getTimeControl()).positionOf(ticket);
+    }
+
+    // White has been waiting and is always notified; black is notified too unless it gets the game in the
+    // response. The tickets stay in the waiting map until then, so a poll never sees a player in neither state.
+    // If the game can't be created, waiting players go back to their pool; black from join() gets the error
+    private Game pair(MatchTicket white, MatchTicket black, long now, boolean notifyBlack) {
+        Game game;
+        try {
+            game = gameService.createGame(white.getUser(), black.getUser(), white.getTimeControl());
+        } catch (RuntimeException e) {
+            requeue(white);
+            if (notifyBlack) {
+                requeue(black);
+            } else {
+                waiting.remove(black.getUsername(), black);
+            }
+            throw e;
+        }
+        matchmakingStats.recordPairing(Math.abs(white.getRating() - black.getRating()),
+                now - Math.min(white.getJoinedAt(), black.getJoinedAt()));
+        try {
+            notifyMatched(white.getUsername(), game);
+            if (notifyBlack) {
+                notifyMatched(black.getUsername(), game);
+            }
+            return game;
+        } finally {
+            waiting.remove(white.getUsername(), white);
+            waiting.remove(black.getUsername(), black);
+        }
+    }
+
+    // Replaces a claimed ticket with a fresh one in the same place, unless the player left in the meantime
+    private void requeue(MatchTicket ticket) {
+        MatchTicket fresh = new MatchTicket(ticket.getUser(), ticket.getTimeControl(), ticket.getJoinedAt());
+        if (waiting.replace(ticket.getUsername(), ticket, fresh)) {
+            pools.get(fresh.getTimeControl()).requeue(fresh, ticket.getSequence());
+        }
+    }
+
+    private void notifyMatched(String username, Game game) {
+        matchedGames.put(username, game.getId());
+        wakeWaiter(username);
+
+        Map<String, Object> matchData = Map.of(
+                "gameId", game.getId(),
+                "whitePlayer", game.getWhitePlayerName(),
+                "blackPlayer", game.getBlackPlayerName(),
+                "timeControl", game.getTimeControl().name());
+        messagingTemplate.convertAndSendToUser(username, "/queue/match-found", matchData);
+    }
+
+    private void wakeWaiter(String username) {
+        CompletableFuture<Void> waiter = matchWaiters.remove(username);
+        if (waiter != null) {
+            waiter.complete(null);
+        }
+    }
+}
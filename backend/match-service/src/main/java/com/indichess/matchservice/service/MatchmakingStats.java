@@ -0,0 +1,56 @@
+package com.indichess.matchservice.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wait time of paired players against the rating gap they accepted, grouped in
+ * gap bands, to tune the search window.
+ */
+@Component
+public class MatchmakingStats {
+    private static final int[] GAP_BANDS = { 50, 100, 200, 400, 800 };
+
+    private final Band[] bands = new Band[GAP_BANDS.length + 1];
+
+    public MatchmakingStats() {
+        for (int i = 0; i < bands.length; i++) {
+            bands[i] = new Band();
+        }
+    }
+
+    public void recordPairing(int ratingGap, long waitMillis) {
+        int band = 0;
+        while (band < GAP_BANDS.length && ratingGap > GAP_BANDS[band]) {
+            band++;
+        }
+        bands[band].pairs.increment();
+        bands[band].totalWait.add(waitMillis);
+        bands[band].maxWait.accumulate(waitMillis);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int i = 0; i < bands.length; i++) {
+            String label = i < GAP_BANDS.length
+                    ? (i == 0 ? 0 : GAP_BANDS[i - 1] + 1) + "-" + GAP_BANDS[i]
+                    : GAP_BANDS[GAP_BANDS.length - 1] + 1 + "+";
+            long pairs = bands[i].pairs.sum();
+            result.put(label, Map.of(
+                    "pairs", pairs,
+                    "avgWaitMillis", pairs == 0 ? 0 : bands[i].totalWait.sum() / pairs,
+                    "maxWaitMillis", bands[i].maxWait.get()));
+        }
+        return result;
+    }
+
+    private static final class Band {
+        private final LongAdder pairs = new LongAdder();
+        private final LongAdder totalWait = new LongAdder();
+        private final LongAccumulator maxWait = new LongAccumulator(Math::max, 0);
+    }
+}
@@ -0,0 +1,27 @@
+package com.indichess.matchservice.service;
+
+import com.indichess.matchservice.model.DrawReason;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Everything GameService needs to know about a move, produced by a single pass
+ * over one chesslib Board.
+ */
+@Getter
+@Builder
+public class MoveResult {
+    private final String uci; // e.g. "e7e8q"
+    private final String san; // e.g. "e8=Q+"
+    private final String fen;
+    private final LegalMoveTable legalMoves; // of the position after the move
+    private final String sideToMove; // "WHITE" or "BLACK"
+    private final boolean check;
+    private final boolean checkmate;
+    private final boolean stalemate;
+    private final DrawReason drawReason; // null unless the game is drawn
+
+    public boolean isGameOver() {
+        return checkmate || drawReason != null;
+    }
+}
@@ -0,0 +1,260 @@
+package com.indichess.matchservice.service;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.indichess.common.codec.GameRecordReader;
+import com.indichess.common.codec.MoveCodec;
+import com.indichess.common.dto.PositionExplorerDTO;
+import com.indichess.matchservice.model.ArchivedGame;
+import com.indichess.matchservice.model.Game;
+import com.indichess.matchservice.model.GameStatus;
+import com.indichess.matchservice.repository.ArchivedGameRepository;
+import com.indichess.matchservice.repository.FinishedGameView;
+import com.indichess.matchservice.repository.GameRepository;
+import com.indichess.matchservice.repository.MoveRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Answers "how often was this position reached, what was played next and how
+ * did those games end" from an in-memory {@link PositionIndex} over all
+ * finished games, up to {@code match.explorer.max-ply} plies into each game.
+ * <p>
+ * The index is built on every node. At startup it is filled from the stored
+ * games, live and archived. Games that finish on this node are added as they
+ * end, and games finished on other nodes are picked up by polling for recently
+ * finished rows. The index remembers which games it holds, so the three
+ * sources may overlap. All additions run on one thread.
+ */
+@Slf4j
+@Service
+public class PositionExplorerService {
+    private static final int BATCH_SIZE = 500;
+
+    private final GameRepository gameRepository;
+    private final ArchivedGameRepository archivedGameRepository;
+    private final MoveRepository moveRepository;
+    private final GameEngineService gameEngineService;
+    private final boolean enabled;
+    private final int maxPly;
+    private final Duration catchUpOverlap;
+
+    private final PositionIndex index = new PositionIndex();
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "position-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean catchUpQueued = new AtomicBoolean();
+
+    // Only touched on the indexer thread
+    private LocalDateTime catchUpFrom;
+    private volatile boolean complete;
+
+    public PositionExplorerService(GameRepository gameRepository,
+            ArchivedGameRepository archivedGameRepository,
+            MoveRepository moveRepository,
+            GameEngineService gameEngineService,
+            @Value("${match.explorer.enabled:true}") boolean enabled,
+            @Value("${match.explorer.max-ply:40}") int maxPly,
+            @Value("${match.explorer.catch-up-overlap-ms:60000}") long catchUpOverlapMs) {
+        this.gameRepository = gameRepository;
+        this.archivedGameRepository = archivedGameRepository;
+        this.moveRepository = moveRepository;
+        this.gameEngineService = gameEngineService;
+        this.enabled = enabled;
+        this.maxPly = maxPly;
+        this.catchUpOverlap = Duration.ofMillis(catchUpOverlapMs);
+    }
+
+    public PositionExplorerDTO explore(String fen) {
+        Board board;
+        try {
+            board = gameEngineService.createBoard(fen);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        PositionIndex.PositionStats stats = index.lookup(board.getZobristKey());
+        PositionExplorerDTO.PositionExplorerDTOBuilder result = PositionExplorerDTO.builder()
+                .fen(board.getFen())
+                .moves(List.of())
+                .complete(complete);
+        if (stats == null) {
+            return result.build();
+        }
+        List<PositionExplorerDTO.MoveStats> moves = new ArrayList<>(stats.moves().size());
+        for (PositionIndex.MoveStats move : stats.moves()) {
+            moves.add(PositionExplorerDTO.MoveStats.builder()
+                    .uci(MoveCodec.decode(move.move()))
+                    .games(move.games())
+                    .whiteWins(move.whiteWins())
+                    .draws(move.draws())
+                    .blackWins(move.blackWins())
+                    .build());
+        }
+        return result
+                .games(stats.games())
+                .whiteWins(stats.whiteWins())
+                .draws(stats.draws())
+                .blackWins(stats.blackWins())
+                .moves(moves)
+                .build();
+    }
+
+    /**
+     * Adds a game that just finished on this node. Called on the game's lane;
+     * the replay happens on the indexer thread.
+     */
+    public void onGameFinished(Game game, byte[] moveRecord) {
+        if (!enabled || game.getResult() == null) {
+            return;
+        }
+        Long gameId = game.getId();
+        String result = game.getResult();
+        indexer.execute(() -> add(gameId, result, moveRecord));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        if (!enabled) {
+            return;
+        }
+        indexer.execute(() -> {
+            long started = System.currentTimeMillis();
+            catchUpFrom = LocalDateTime.now().minus(catchUpOverlap);
+            try {
+                backfillGames();
+                backfillArchive();
+                complete = true;
+                log.info("Position index built from {} games, {} positions, in {} ms",
+                        index.getGameCount(), index.getPositionCount(), System.currentTimeMillis() - started);
+            } catch (RuntimeException e) {
+                log.error("Building the position index failed after {} games", index.getGameCount(), e);
+            }
+        });
+    }
+
+    // Picks up games finished on other nodes
+    @Scheduled(fixedDelayString = "${match.explorer.catch-up-interval-ms:10000}")
+    public void catchUp() {
+        // Don't pile up runs behind a long backfill
+        if (!enabled || !catchUpQueued.compareAndSet(false, true)) {
+            return;
+        }
+        indexer.execute(() -> {
+            catchUpQueued.set(false);
+            if (catchUpFrom == null) {
+                return;
+            }
+            try {
+                // Starts at id 0 so games updated exactly at catchUpFrom are included
+                LocalDateTime since = catchUpFrom;
+                long afterId = 0;
+                List<FinishedGameView> games;
+                do {
+                    games = gameRepository.findFinishedAfter(GameStatus.FINISHED, since, afterId,
+                            PageRequest.of(0, BATCH_SIZE));
+                    for (FinishedGameView game : games) {
+                        add(game);
+                        since = game.getUpdatedAt();
+                        afterId = game.getId();
+                    }
+                } while (games.size() == BATCH_SIZE);
+                // Rows become visible when their transaction commits, which may be after updated_at
+                LocalDateTime next = since.minus(catchUpOverlap);
+                if (next.isAfter(catchUpFrom)) {
+                    catchUpFrom = next;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Position index catch-up failed, will retry", e);
+            }
+        });
+    }
+
+    private void backfillGames() {
+        long afterId = 0;
+        List<FinishedGameView> games;
+        do {
+            games = gameRepository.findFinishedAfterId(GameStatus.FINISHED, afterId,
+                    PageRequest.of(0, BATCH_SIZE));
+            for (FinishedGameView game : games) {
+                add(game);
+                afterId = game.getId();
+            }
+        } while (games.size() == BATCH_SIZE);
+    }
+
+    private void backfillArchive() {
+        long afterId = 0;
+        List<ArchivedGame> games;
+        do {
+            games = archivedGameRepository.findByIdGreaterThanOrderByIdAsc(afterId,
+                    PageRequest.of(0, BATCH_SIZE));
+            for (ArchivedGame archived : games) {
+                if (archived.getResult() != null) {
+                    add(archived.getId(), archived.getResult(),
+                            GameArchiveCodec.fromArchive(archived).getMoveRecord());
+                }
+                afterId = archived.getId();
+            }
+        } while (games.size() == BATCH_SIZE);
+    }
+
+    private void add(FinishedGameView game) {
+        if (game.getResult() == null) {
+            return;
+        }
+        byte[] record = game.getMoveRecord();
+        if (record == null) {
+            // Finished before move records existed; its moves rows are still there
+            Game stub = Game.builder().id(game.getId()).build();
+            record = GameReplay.recordOf(stub, moveRepository.findByGameIdOrderByMoveNumberAsc(game.getId()))
+                    .toByteArray();
+        }
+        add(game.getId(), game.getResult(), record);
+    }
+
+    private void add(Long gameId, String result, byte[] moveRecord) {
+        int outcome = switch (result) {
+            case "1-0" -> PositionIndex.WHITE_WIN;
+            case "0-1" -> PositionIndex.BLACK_WIN;
+            default -> PositionIndex.DRAW;
+        };
+        try {
+            GameRecordReader record = new GameRecordReader(moveRecord);
+            Board board = gameEngineService.createBoard(
+                    record.getStartFen() != null ? record.getStartFen() : gameEngineService.getInitialFen());
+            // The positions within maxPly, and the move played from each that has one
+            long[] keys = new long[Math.min(record.getPlyCount() + 1, maxPly)];
+            short[] moves = new short[Math.min(record.getPlyCount(), keys.length)];
+            for (int ply = 0; ply < keys.length; ply++) {
+                keys[ply] = board.getZobristKey();
+                if (ply < moves.length) {
+                    moves[ply] = record.moveCodeAt(ply);
+                    gameEngineService.playUci(board, record.uciAt(ply));
+                }
+            }
+            index.addGame(gameId, keys, moves, outcome);
+        } catch (RuntimeException e) {
+            log.warn("Could not index game {}", gameId, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexer.shutdownNow();
+    }
+}
@@ -0,0 +1,248 @@
+package com.indichess.matchservice.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Aggregates played games by position. Positions are keyed by their 64-bit
+ * Zobrist hash in an open-addressing table of primitive arrays, so a lookup is
+ * a few array reads and an entry costs a few dozen bytes rather than an object
+ * graph. Each position keeps white win / draw / black win totals and a linked
+ * list of the moves played from it, each with its own totals.
+ * <p>
+ * A game is added at most once (its id is remembered), and a position it
+ * reaches more than once, by repetition, counts once. Reads take a shared lock,
+ * so adding a game never blocks lookups for longer than that one game.
+ */
+class PositionIndex {
+    static final int WHITE_WIN = 0;
+    static final int DRAW = 1;
+    static final int BLACK_WIN = 2;
+
+    private static final int NONE = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Zobrist key -> position number + 1 (0 is an empty slot)
+    private int[] positionTable = new int[1 << 16];
+    private long[] positionKeys = new long[1 << 15];
+    private int[][] positionTotals = new int[3][1 << 15];
+    private int[] firstEdge = new int[1 << 15];
+    private int positionCount;
+
+    // Moves played from a position, chained per position
+    private short[] edgeMoves = new short[1 << 15];
+    private int[] nextEdge = new int[1 << 15];
+    private int[][] edgeTotals = new int[3][1 << 15];
+    private int edgeCount;
+
+    // Ids of the games already added; 0 is an empty slot
+    private long[] gameIds = new long[1 << 16];
+    private int gameCount;
+
+    /**
+     * Adds one finished game.
+     *
+     * @param keys    Zobrist keys of the positions reached, in order
+     * @param moves   move codes (see MoveCodec) played from each position; one shorter than
+     *                keys when the last position is the final one
+     * @param outcome WHITE_WIN, DRAW or BLACK_WIN
+     * @return false if the game had already been added
+     */
+    boolean addGame(long gameId, long[] keys, short[] moves, int outcome) {
+        lock.writeLock().lock();
+        try {
+            if (!addGameId(gameId)) {
+                return false;
+            }
+            for (int ply = 0; ply < keys.length; ply++) {
+                if (repeats(keys, ply)) {
+                    continue;
+                }
+                int position = positionOf(keys[ply]);
+                positionTotals[outcome][position]++;
+                if (ply < moves.length) {
+                    // edgeOf may grow the arrays, so it has to run before they are read
+                    int edge = edgeOf(position, moves[ply]);
+                    edgeTotals[outcome][edge]++;
+                }
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Totals for a position and every move played from it, most played first,
+     * or null if no indexed game reached it.
+     */
+    PositionStats lookup(long key) {
+        lock.readLock().lock();
+        try {
+            int position = find(key);
+            if (position == NONE) {
+                return null;
+            }
+            List<MoveStats> moves = new ArrayList<>();
+            for (int edge = firstEdge[position]; edge != NONE; edge = nextEdge[edge]) {
+                moves.add(new MoveStats(edgeMoves[edge],
+                        edgeTotals[WHITE_WIN][edge], edgeTotals[DRAW][edge], edgeTotals[BLACK_WIN][edge]));
+            }
+            moves.sort((a, b) -> Integer.compare(b.games(), a.games()));
+            return new PositionStats(positionTotals[WHITE_WIN][position], positionTotals[DRAW][position],
+                    positionTotals[BLACK_WIN][position], moves);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int getPositionCount() {
+        lock.readLock().lock();
+        try {
+            return positionCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int getGameCount() {
+        lock.readLock().lock();
+        try {
+            return gameCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Games are short, so an earlier occurrence in the same game is found by scanning
+    private static boolean repeats(long[] keys, int ply) {
+        for (int i = ply - 1; i >= 0; i--) {
+            if (keys[i] == keys[ply]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int find(long key) {
+        int mask = positionTable.length - 1;
+        for (int slot = slot(key, mask); positionTable[slot] != 0; slot = (slot + 1) & mask) {
+            int position = positionTable[slot] - 1;
+            if (positionKeys[position] == key) {
+                return position;
+            }
+        }
+        return NONE;
+    }
+
+    private int positionOf(long key) {
+        int mask = positionTable.length - 1;
+        int slot = slot(key, mask);
+        for (; positionTable[slot] != 0; slot = (slot + 1) & mask) {
+            int position = positionTable[slot] - 1;
+            if (positionKeys[position] == key) {
+                return position;
+            }
+        }
+        if (positionCount == positionKeys.length) {
+            int capacity = positionCount * 2;
+            positionKeys = Arrays.copyOf(positionKeys, capacity);
+            firstEdge = Arrays.copyOf(firstEdge, capacity);
+            for (int i = 0; i < 3; i++) {
+                positionTotals[i] = Arrays.copyOf(positionTotals[i], capacity);
+            }
+        }
+        int position = positionCount++;
+        positionKeys[position] = key;
+        firstEdge[position] = NONE;
+        positionTable[slot] = position + 1;
+        if (positionCount * 2 > positionTable.length) {
+            rehashPositions();
+        }
+        return position;
+    }
+
+    private void rehashPositions() {
+        int[] table = new int[positionTable.length * 2];
+        int mask = table.length - 1;
+        for (int position = 0; position < positionCount; position++) {
+            int slot = slot(positionKeys[position], mask);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = position + 1;
+        }
+        positionTable = table;
+    }
+
+    // A position has a handful of distinct replies, so its chain is scanned
+    private int edgeOf(int position, short move) {
+        for (int edge = firstEdge[position]; edge != NONE; edge = nextEdge[edge]) {
+            if (edgeMoves[edge] == move) {
+                return edge;
+            }
+        }
+        if (edgeCount == edgeMoves.length) {
+            int capacity = edgeCount * 2;
+            edgeMoves = Arrays.copyOf(edgeMoves, capacity);
+            nextEdge = Arrays.copyOf(nextEdge, capacity);
+            for (int i = 0; i < 3; i++) {
+                edgeTotals[i] = Arrays.copyOf(edgeTotals[i], capacity);
+            }
+        }
+        int edge = edgeCount++;
+        edgeMoves[edge] = move;
+        nextEdge[edge] = firstEdge[position];
+        firstEdge[position] = edge;
+        return edge;
+    }
+
+    private boolean addGameId(long gameId) {
+        int mask = gameIds.length - 1;
+        int slot = slot(gameId, mask);
+        for (; gameIds[slot] != 0; slot = (slot + 1) & mask) {
+            if (gameIds[slot] == gameId) {
+                return false;
+            }
+        }
+        gameIds[slot] = gameId;
+        if (++gameCount * 2 > gameIds.length) {
+            long[] table = new long[gameIds.length * 2];
+            int newMask = table.length - 1;
+            for (long id : gameIds) {
+                if (id != 0) {
+                    int s = slot(id, newMask);
+                    while (table[s] != 0) {
+                        s = (s + 1) & newMask;
+                    }
+                    table[s] = id;
+                }
+            }
+            gameIds = table;
+        }
+        return true;
+    }
+
+    // Zobrist keys are already uniform; game ids are sequential and need mixing
+    private static int slot(long key, int mask) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    record PositionStats(int whiteWins, int draws, int blackWins, List<MoveStats> moves) {
+        int games() {
+            return whiteWins + draws + blackWins;
+        }
+    }
+
+    record MoveStats(short move, int whiteWins, int draws, int blackWins) {
+        int games() {
+            return whiteWins + draws + blackWins;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.indichess.matchservice.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Players waiting for one time control, indexed by rating in fixed-width
+ * buckets. Each bucket is FIFO (a player whose pairing fell through goes back
+ * to the front), and a player's search window only grows with the time they
+ * have waited, so the head of a bucket is always its most flexible player:
+ * finding an opponent only looks at the heads of the few
+ * buckets the window reaches, however many players are waiting. Tickets that
+ * leave are only flagged as claimed and dropped once they reach a bucket's head.
+ * <p>
+ * Queue positions are exact: a Fenwick tree over join sequence numbers counts
+ * the live tickets that joined before a player in O(log n).
+ * All mutations, including cancellation, happen under the pool's lock.
+ */
+class RatingPool {
+    static final int BUCKET_WIDTH = 50;
+    private static final int MAX_RATING = 4000;
+    private static final int MIN_SLOTS = 1024;
+
+    private final SearchWindow window;
+    private final ArrayDeque<MatchTicket>[] buckets;
+
+    private long enqueued;
+    private int size;
+
+    // Fenwick tree of live tickets; slot i is sequence base + i
+    private int[] live = new int[MIN_SLOTS + 1];
+    private long base = 1;
+
+    @SuppressWarnings("unchecked")
+    RatingPool(SearchWindow window) {
+        this.window = window;
+        this.buckets = new ArrayDeque[MAX_RATING / BUCKET_WIDTH + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Returns the opponent for the arriving ticket, claimed and removed from the
+     * pool, or adds the ticket to the pool and returns null if nobody in range
+     * is waiting.
+     */
+    synchronized MatchTicket pollOrOffer(MatchTicket arriving, long now) {
+        if (arriving.isClaimed()) {
+            // Left again before reaching the pool
+            return null;
+        }
+        MatchTicket opponent = findOpponent(arriving, now);
+        if (opponent != null) {
+            take(opponent);
+            return opponent;
+        }
+        offer(arriving);
+        return null;
+    }
+
+    /**
+     * Puts a player back whose pairing fell through, without looking for an
+     * opponent; the next sweep does. The ticket carries the player's original
+     * join time, and so its search window, and takes back its join sequence
+     * number and its place at the front of its bucket, ahead of everyone who
+     * joined later.
+     */
+    synchronized void requeue(MatchTicket ticket, long sequence) {
+        if (ticket.isClaimed()) {
+            return;
+        }
+        if (sequence <= 0) {
+            offer(ticket);
+            return;
+        }
+        ticket.setSequence(sequence);
+        // Only other requeued players can be ahead of it and still older
+        ArrayDeque<MatchTicket> bucket = buckets[bucketOf(ticket.getRating())];
+        ArrayDeque<MatchTicket> older = new ArrayDeque<>();
+        while (!bucket.isEmpty() && bucket.peekFirst().getJoinedAt() <= ticket.getJoinedAt()) {
+            older.push(bucket.pollFirst());
+        }
+        bucket.addFirst(ticket);
+        while (!older.isEmpty()) {
+            bucket.addFirst(older.pop());
+        }
+        size++;
+        if (sequence < base) {
+            // Slot numbering has moved past it; the rebuild counts it again
+            rebase();
+        } else {
+            addLive(ticket, 1);
+        }
+    }
+
+    private void offer(MatchTicket arriving) {
+        arriving.setSequence(++enqueued);
+        if (arriving.getSequence() - base >= live.length - 1) {
+            rebase();
+        }
+        buckets[bucketOf(arriving.getRating())].addLast(arriving);
+        addLive(arriving, 1);
+        size++;
+    }
+
+    /**
+     * Retries the head of every bucket with the window it has grown into since
+     * joining, until no more pairs can be made. Heads are the longest-waiting,
+     * widest-window players of their bucket, so this stays proportional to the
+     * number of buckets rather than the number of players. Returns the pairs
+     * made, the searching (longer-waiting) player first.
+     */
+    synchronized List<MatchTicket[]> sweep(long now) {
+        List<MatchTicket[]> pairs = new ArrayList<>();
+        boolean paired;
+        do {
+            paired = false;
+            for (ArrayDeque<MatchTicket> bucket : buckets) {
+                MatchTicket ticket = head(bucket, null);
+                if (ticket == null) {
+                    continue;
+                }
+                MatchTicket opponent = findOpponent(ticket, now);
+                if (opponent != null) {
+                    take(ticket);
+                    take(opponent);
+                    pairs.add(new MatchTicket[] { ticket, opponent });
+                    paired = true;
+                }
+            }
+        } while (paired);
+        return pairs;
+    }
+
+    synchronized boolean cancel(MatchTicket ticket) {
+        if (!ticket.claim()) {
+            return false;
+        }
+        if (ticket.getSequence() > 0) {
+            addLive(ticket, -1);
+            size--;
+        }
+        return true;
+    }
+
+    // Players still waiting who joined before this one, plus one
+    synchronized int positionOf(MatchTicket ticket) {
+        long slot = ticket.getSequence() - base;
+        if (ticket.getSequence() == 0 || slot < 0) {
+            return 1;
+        }
+        int count = 0;
+        for (int i = (int) slot + 1; i > 0; i -= i & -i) {
+            count += live[i];
+        }
+        return Math.max(1, count);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private MatchTicket findOpponent(MatchTicket ticket, long now) {
+        int rating = ticket.getRating();
+        int reach = window.of(ticket, now);
+        int home = bucketOf(rating);
+        int span = reach / BUCKET_WIDTH + 1;
+
+        MatchTicket best = null;
+        int bestGap = Integer.MAX_VALUE;
+        for (int distance = 0; distance <= span; distance++) {
+            for (int index : new int[] { home - distance, home + distance }) {
+                if (index < 0 || index >= buckets.length || (distance == 0 && index != home)) {
+                    continue;
+                }
+                MatchTicket candidate = head(buckets[index], ticket);
+                if (candidate == null) {
+                    continue;
+                }
+                int gap = Math.abs(rating - candidate.getRating());
+                if (gap <= reach && gap <= window.of(candidate, now) && gap < bestGap) {
+                    best = candidate;
+                    bestGap = gap;
+                }
+            }
+            // Buckets further out are at least this far away
+            if (best != null && bestGap <= distance * BUCKET_WIDTH) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    // First live ticket of a bucket other than the one searching; drops cancelled heads
+    private MatchTicket head(ArrayDeque<MatchTicket> bucket, MatchTicket self) {
+        Iterator<MatchTicket> it = bucket.iterator();
+        while (it.hasNext()) {
+            MatchTicket ticket = it.next();
+            if (ticket.isClaimed()) {
+                it.remove();
+            } else if (ticket != self) {
+                return ticket;
+            }
+        }
+        return null;
+    }
+
+    // The ticket stays in its bucket until head() passes over it
+    private void take(MatchTicket ticket) {
+        if (ticket.claim()) {
+            addLive(ticket, -1);
+            size--;
+        }
+    }
+
+    private void addLive(MatchTicket ticket, int delta) {
+        long slot = ticket.getSequence() - base;
+        if (slot < 0) {
+            return;
+        }
+        for (int i = (int) slot + 1; i < live.length; i += i & -i) {
+            live[i] += delta;
+        }
+    }
+
+    // Restarts slot numbering at the oldest live ticket, with room for twice the live sequence span.
+    // Walks every bucket, dropping the claimed tickets on the way, so its O(n) is amortized by the span.
+    private void rebase() {
+        long oldest = enqueued;
+        for (ArrayDeque<MatchTicket> bucket : buckets) {
+            bucket.removeIf(MatchTicket::isClaimed);
+            for (MatchTicket ticket : bucket) {
+                oldest = Math.min(oldest, ticket.getSequence());
+            }
+        }
+        base = oldest;
+        int slots = MIN_SLOTS;
+        while (slots < 2 * (enqueued - base + 1)) {
+            slots *= 2;
+        }
+        live = new int[slots + 1];
+        for (ArrayDeque<MatchTicket> bucket : buckets) {
+            for (MatchTicket ticket : bucket) {
+                addLive(ticket, 1);
+            }
+        }
+    }
+
+    private int bucketOf(int rating) {
+        return Math.min(Math.max(rating, 0), MAX_RATING) / BUCKET_WIDTH;
+    }
+}
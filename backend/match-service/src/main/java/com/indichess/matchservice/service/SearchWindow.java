@@ -0,0 +1,13 @@
+package com.indichess.matchservice.service;
+
+/**
+ * How far, in rating points, a waiting player accepts an opponent to be: a base
+ * window that widens linearly with the time waited, up to a cap.
+ */
+record SearchWindow(int initial, int widenPerSecond, int max) {
+
+    int of(MatchTicket ticket, long now) {
+        long waitedSeconds = Math.max(0, now - ticket.getJoinedAt()) / 1000;
+        return (int) Math.min(max, initial + waitedSeconds * widenPerSecond);
+    }
+}
@@ -0,0 +1,12 @@
+-- V2__add_game_ply_count.sql
+-- Ply counter on games so appending a move never has to read the moves table
+ALTER TABLE games
+ADD COLUMN ply_count INT NOT NULL DEFAULT 0;
+UPDATE games g
+SET ply_count = (
+        SELECT COUNT(*)
+        FROM moves m
+        WHERE m.game_id = g.id
+    );
+-- Replaying a game's log after a restart reads moves in order
+CREATE INDEX idx_moves_game_move_number ON moves(game_id, move_number);
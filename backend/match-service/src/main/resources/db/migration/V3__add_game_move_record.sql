@@ -0,0 +1,4 @@
+-- V3__add_game_move_record.sql
+-- Compact binary move record for finished games; replaces their rows in moves
+ALTER TABLE games
+ADD COLUMN move_record BLOB;
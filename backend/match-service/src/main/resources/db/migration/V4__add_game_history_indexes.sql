@@ -0,0 +1,20 @@
+-- V4__add_game_history_indexes.sql
+-- Result of finished games, backfilled from the status message of existing rows
+ALTER TABLE games
+ADD COLUMN result VARCHAR(7);
+
+UPDATE games SET result = CASE
+    WHEN status = 'DRAW' THEN '1/2-1/2'
+    WHEN status_message LIKE 'White wins%' THEN '1-0'
+    WHEN status_message LIKE 'Black wins%' THEN '0-1'
+END
+WHERE status IN ('COMPLETED', 'DRAW');
+
+-- Covering indexes for history pages, one per side, in (created_at, id) keyset order.
+-- They lead with the player id, so they replace the single-column player indexes.
+CREATE INDEX idx_games_white_history
+    ON games(white_player_id, created_at, id, black_player_name, status, result, time_control);
+CREATE INDEX idx_games_black_history
+    ON games(black_player_id, created_at, id, white_player_name, status, result, time_control);
+DROP INDEX idx_games_white_player ON games;
+DROP INDEX idx_games_black_player ON games;
@@ -0,0 +1,25 @@
+-- V5__add_archived_games.sql
+-- Cold storage for finished games. The history columns stay queryable; everything
+-- else (positions, PGN, clocks, move record) is one deflated blob per game.
+CREATE TABLE IF NOT EXISTS archived_games (
+    id BIGINT PRIMARY KEY,
+    white_player_id BIGINT,
+    black_player_id BIGINT,
+    white_player_name VARCHAR(50),
+    black_player_name VARCHAR(50),
+    status VARCHAR(20) NOT NULL,
+    result VARCHAR(7),
+    time_control VARCHAR(20),
+    created_at TIMESTAMP NULL,
+    finished_at TIMESTAMP NULL,
+    record MEDIUMBLOB NOT NULL
+);
+
+CREATE INDEX idx_archived_games_white_history
+    ON archived_games(white_player_id, created_at, id, black_player_name, status, result, time_control);
+CREATE INDEX idx_archived_games_black_history
+    ON archived_games(black_player_id, created_at, id, white_player_name, status, result, time_control);
+
+-- Lets the archiver find finished games by age; also serves the existing lookups by status
+CREATE INDEX idx_games_status_updated ON games(status, updated_at);
+DROP INDEX idx_games_status ON games;
@@ -0,0 +1,164 @@
+package com.indichess.matchservice.config;
+
+import com.indichess.matchservice.service.GameBroadcaster;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two match-service nodes in relay mode behind one STOMP broker (a local
+ * stand-in for RabbitMQ): what one node sends must reach a client connected
+ * to the other, both on game topics and on user destinations.
+ */
+class BrokerRelayCrossNodeTest {
+    private static final String SECRET = "mySecretKeyForJWTTokenGenerationThatIsAtLeast256BitsLong";
+    private static final String UNRESOLVED_USER_TOPIC = "/topic/unresolved-user-destination";
+
+    private static StompBrokerStandIn broker;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static WebSocketStompClient stompClient;
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration(excludeName = {
+            "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration",
+            "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration",
+            "org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration"
+    })
+    @Import({ WebSocketConfig.class, GameBroadcaster.class, StompAuthChannelInterceptor.class })
+    static class RelayNode {
+    }
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        broker = new StompBrokerStandIn();
+        nodeA = startNode();
+        nodeB = startNode();
+        // Each node's system session subscribes here once it is connected to the broker
+        assertTrue(broker.awaitSubscribers(UNRESOLVED_USER_TOPIC, 2, 10, TimeUnit.SECONDS),
+                "nodes did not connect to the broker");
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(RelayNode.class)
+                .properties(
+                        "server.port=0",
+                        "match.broker.mode=relay",
+                        "match.broker.relay.host=127.0.0.1",
+                        "match.broker.relay.port=" + broker.getPort(),
+                        "jwt.secret=" + SECRET)
+                .run();
+    }
+
+    @AfterAll
+    static void stopNodes() throws Exception {
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (broker != null) {
+            broker.close();
+        }
+    }
+
+    @Test
+    void gameUpdateSentOnOneNodeReachesSubscriberOnAnother() throws Exception {
+        StompSession session = connect(nodeB, null);
+        CompletableFuture<String> received = new CompletableFuture<>();
+        subscribe(session, "/topic/game/42", received);
+
+        nodeA.getBean(SimpMessagingTemplate.class).convertAndSend("/topic/game/42", Map.of("seq", 7));
+
+        String payload = received.get(5, TimeUnit.SECONDS);
+        assertTrue(payload.contains("\"seq\":7"), payload);
+        session.disconnect();
+    }
+
+    @Test
+    void matchFoundSentOnOneNodeReachesUserConnectedToAnother() throws Exception {
+        StompSession session = connect(nodeB, tokenFor("alice"));
+        CompletableFuture<String> received = new CompletableFuture<>();
+        subscribe(session, "/user/queue/match-found", received);
+
+        // Node A doesn't know alice; the relay broadcasts the message and node B resolves it
+        nodeA.getBean(SimpMessagingTemplate.class)
+                .convertAndSendToUser("alice", "/queue/match-found", Map.of("gameId", 42));
+
+        String payload = received.get(5, TimeUnit.SECONDS);
+        assertEquals("{\"gameId\":42}", payload);
+        session.disconnect();
+    }
+
+    private static StompSession connect(ConfigurableApplicationContext node, String token) throws Exception {
+        int port = ((ServletWebServerApplicationContext) node).getWebServer().getPort();
+        StompHeaders connectHeaders = new StompHeaders();
+        if (token != null) {
+            connectHeaders.add("Authorization", "Bearer " + token);
+        }
+        return stompClient.connectAsync("ws://127.0.0.1:" + port + "/ws/websocket",
+                        new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {
+                        })
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    // Subscribes and waits for the broker's receipt, so nothing is sent before the subscription exists
+    private static void subscribe(StompSession session, String destination, CompletableFuture<String> received)
+            throws InterruptedException {
+        session.setAutoReceipt(true);
+        CountDownLatch subscribed = new CountDownLatch(1);
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            @NonNull
+            public Type getPayloadType(@NonNull StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(@NonNull StompHeaders headers, Object payload) {
+                received.complete(new String((byte[]) payload, StandardCharsets.UTF_8));
+            }
+        }).addReceiptTask(subscribed::countDown);
+        assertTrue(subscribed.await(5, TimeUnit.SECONDS), "no receipt for " + destination);
+    }
+
+    private static String tokenFor(String username) {
+        return Jwts.builder()
+                .setSubject(username)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .compact();
+    }
+}
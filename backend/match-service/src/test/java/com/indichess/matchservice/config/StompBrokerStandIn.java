@@ -0,0 +1,229 @@
+package com.indichess.matchservice.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Just enough of a STOMP 1.2 broker to stand in for RabbitMQ behind the broker
+ * relay: CONNECT, SUBSCRIBE, UNSUBSCRIBE, SEND, DISCONNECT and receipts, with
+ * every SEND delivered to all subscriptions on exactly its destination.
+ * Heart-beats are turned off in CONNECTED.
+ */
+class StompBrokerStandIn implements AutoCloseable {
+    private final ServerSocket server;
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "stomp-stand-in");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Map<Socket, OutputStream> outputs = new ConcurrentHashMap<>();
+    private final AtomicLong messageIds = new AtomicLong();
+
+    private record Subscription(Socket socket, String id, String destination) {
+    }
+
+    StompBrokerStandIn() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        connections.execute(this::accept);
+    }
+
+    int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Waits until the destination has at least the given number of subscriptions.
+     */
+    boolean awaitSubscribers(String destination, int count, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (System.nanoTime() < deadline) {
+            long matching = subscriptions.stream().filter(s -> s.destination().equals(destination)).count();
+            if (matching >= count) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            outputs.put(socket, socket.getOutputStream());
+            InputStream in = socket.getInputStream();
+            Frame frame;
+            while ((frame = Frame.read(in)) != null) {
+                if (!handle(socket, frame)) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // Connection dropped
+        } finally {
+            outputs.remove(socket);
+            subscriptions.removeIf(s -> s.socket() == socket);
+        }
+    }
+
+    private boolean handle(Socket socket, Frame frame) throws IOException {
+        switch (frame.command) {
+            case "CONNECT", "STOMP" -> {
+                Map<String, String> headers = new LinkedHashMap<>();
+                headers.put("version", "1.2");
+                headers.put("heart-beat", "0,0");
+                write(socket, new Frame("CONNECTED", headers, new byte[0]));
+            }
+            case "SUBSCRIBE" -> subscriptions.add(
+                    new Subscription(socket, frame.headers.get("id"), frame.headers.get("destination")));
+            case "UNSUBSCRIBE" -> subscriptions.removeIf(
+                    s -> s.socket() == socket && s.id().equals(frame.headers.get("id")));
+            case "SEND" -> deliver(frame);
+            case "DISCONNECT" -> {
+                receipt(socket, frame);
+                return false;
+            }
+            default -> {
+            }
+        }
+        receipt(socket, frame);
+        return true;
+    }
+
+    private void deliver(Frame send) {
+        String destination = send.headers.get("destination");
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.destination().equals(destination)) {
+                continue;
+            }
+            Map<String, String> headers = new LinkedHashMap<>(send.headers);
+            headers.remove("receipt");
+            headers.put("subscription", subscription.id());
+            headers.put("message-id", Long.toString(messageIds.incrementAndGet()));
+            try {
+                write(subscription.socket(), new Frame("MESSAGE", headers, send.body));
+            } catch (IOException e) {
+                subscriptions.remove(subscription);
+            }
+        }
+    }
+
+    private void receipt(Socket socket, Frame frame) throws IOException {
+        String receipt = frame.headers.get("receipt");
+        if (receipt != null) {
+            write(socket, new Frame("RECEIPT", Map.of("receipt-id", receipt), new byte[0]));
+        }
+    }
+
+    private void write(Socket socket, Frame frame) throws IOException {
+        OutputStream out = outputs.get(socket);
+        if (out == null) {
+            return;
+        }
+        synchronized (out) {
+            out.write(frame.encode());
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Socket socket : outputs.keySet()) {
+            socket.close();
+        }
+        connections.shutdownNow();
+    }
+
+    private record Frame(String command, Map<String, String> headers, byte[] body) {
+
+        // Reads one frame, skipping heart-beat EOLs; null at end of stream
+        static Frame read(InputStream in) throws IOException {
+            String command;
+            do {
+                command = readLine(in);
+                if (command == null) {
+                    return null;
+                }
+            } while (command.isEmpty());
+
+            Map<String, String> headers = new LinkedHashMap<>();
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                // The first occurrence of a repeated header wins
+                headers.putIfAbsent(line.substring(0, colon), line.substring(colon + 1));
+            }
+
+            byte[] body;
+            String contentLength = headers.get("content-length");
+            if (contentLength != null) {
+                body = in.readNBytes(Integer.parseInt(contentLength));
+                in.read(); // NUL
+            } else {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                int b;
+                while ((b = in.read()) > 0) {
+                    bytes.write(b);
+                }
+                body = bytes.toByteArray();
+            }
+            return new Frame(command, headers, body);
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    return null;
+                }
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+            return line.toString(StandardCharsets.UTF_8);
+        }
+
+        byte[] encode() {
+            StringBuilder head = new StringBuilder(command).append('\n');
+            headers.forEach((name, value) -> {
+                if (!"content-length".equals(name)) {
+                    head.append(name).append(':').append(value).append('\n');
+                }
+            });
+            head.append("content-length:").append(body.length).append("\n\n");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.writeBytes(head.toString().getBytes(StandardCharsets.UTF_8));
+            out.writeBytes(body);
+            out.write(0);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.indichess.matchservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameClockSchedulerTest {
+    private static final long TICK_MILLIS = 10;
+    // Eight buckets, so a deadline 80 ms or more ahead has to wait out whole revolutions
+    private static final int WHEEL_SIZE = 8;
+    // Upper bound on how late a deadline may fire, allowing for a busy machine
+    private static final long SLACK_MILLIS = 500;
+
+    private final GameClockScheduler scheduler = new GameClockScheduler(TICK_MILLIS, WHEEL_SIZE);
+    private final LinkedBlockingQueue<Expiry> expired = new LinkedBlockingQueue<>();
+
+    private record Expiry(long gameId, long time) {
+    }
+
+    GameClockSchedulerTest() {
+        scheduler.onExpiry(gameId -> expired.add(new Expiry(gameId, System.currentTimeMillis())));
+    }
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void deadlineFiresOnTimeAndNeverEarly() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 50;
+        scheduler.schedule(1L, deadline);
+
+        Expiry expiry = expired.poll(SLACK_MILLIS + 50, TimeUnit.MILLISECONDS);
+
+        assertNotNull(expiry);
+        assertEquals(1L, expiry.gameId());
+        assertTrue(expiry.time() >= deadline, "fired " + (deadline - expiry.time()) + " ms early");
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    void deadlineSeveralRevolutionsAheadWaitsForItsRound() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 25 * TICK_MILLIS;
+        scheduler.schedule(2L, deadline);
+
+        Expiry expiry = expired.poll(25 * TICK_MILLIS + SLACK_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertNotNull(expiry);
+        assertTrue(expiry.time() >= deadline, "fired " + (deadline - expiry.time()) + " ms early");
+    }
+
+    @Test
+    void reschedulingReplacesTheEarlierDeadline() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        scheduler.schedule(3L, now + 30);
+        long deadline = now + 200;
+        scheduler.schedule(3L, deadline);
+
+        Expiry expiry = expired.poll(200 + SLACK_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertNotNull(expiry);
+        assertTrue(expiry.time() >= deadline, "the replaced deadline fired");
+        assertNull(expired.poll(100, TimeUnit.MILLISECONDS), "fired twice");
+    }
+
+    @Test
+    void cancelledDeadlineNeverFires() throws InterruptedException {
+        scheduler.schedule(4L, System.currentTimeMillis() + 30);
+        scheduler.cancel(4L);
+
+        assertEquals(0, scheduler.size());
+        assertNull(expired.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void pastDeadlineFiresOnTheNextTick() throws InterruptedException {
+        scheduler.schedule(5L, System.currentTimeMillis() - 1000);
+
+        Expiry expiry = expired.poll(SLACK_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertNotNull(expiry);
+        assertEquals(5L, expiry.gameId());
+    }
+
+    @Test
+    void failingHandlerDoesNotStopTheWheel() throws InterruptedException {
+        scheduler.onExpiry(gameId -> {
+            if (gameId == 6L) {
+                throw new IllegalStateException("boom");
+            }
+            expired.add(new Expiry(gameId, System.currentTimeMillis()));
+        });
+        long now = System.currentTimeMillis();
+        scheduler.schedule(6L, now + 20);
+        scheduler.schedule(7L, now + 60);
+
+        Expiry expiry = expired.poll(60 + SLACK_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertNotNull(expiry);
+        assertEquals(7L, expiry.gameId());
+    }
+}
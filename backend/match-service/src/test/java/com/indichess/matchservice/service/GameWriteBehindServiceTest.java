@@ -0,0 +1,140 @@
+package com.indichess.matchservice.service;
+
+import com.indichess.common.codec.GameRecordWriter;
+import com.indichess.matchservice.model.Game;
+import com.indichess.matchservice.model.GameStatus;
+import com.indichess.matchservice.model.Move;
+import com.indichess.matchservice.repository.GameRepository;
+import com.indichess.matchservice.repository.MoveRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GameWriteBehindServiceTest {
+    private static final Long GAME_ID = 1L;
+
+    private final GameCommandDispatcher dispatcher = new GameCommandDispatcher(2);
+    private final LiveGameRegistry registry = mock(LiveGameRegistry.class);
+    private final GameRepository gameRepository = mock(GameRepository.class);
+    private final MoveRepository moveRepository = mock(MoveRepository.class);
+    private final GameWriteBehindService service = new GameWriteBehindService(registry, gameRepository,
+            moveRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)), dispatcher);
+
+    // What each game row update wrote, in commit order
+    private final List<GameStatus> writtenStatuses = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> insertedMoves = Collections.synchronizedList(new ArrayList<>());
+
+    private LiveGame live;
+
+    @BeforeEach
+    void setUp() {
+        Game game = Game.builder().id(GAME_ID).status(GameStatus.IN_PROGRESS).build();
+        live = new LiveGame(game, null, null, "", new GameRecordWriter(null));
+        when(registry.all()).thenReturn(List.of(live));
+        doAnswer(invocation -> {
+            for (Object move : invocation.<Iterable<?>>getArgument(0)) {
+                insertedMoves.add(((Move) move).getNotation());
+            }
+            return List.of();
+        }).when(moveRepository).saveAll(anyIterable());
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void finalFlushCommitsAfterAnInFlightPeriodicFlush() throws Exception {
+        CountDownLatch periodicWriting = new CountDownLatch(1);
+        CountDownLatch periodicMayCommit = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            Game written = invocation.getArgument(0);
+            if (written.getStatus() == GameStatus.IN_PROGRESS) {
+                periodicWriting.countDown();
+                assertTrue(periodicMayCommit.await(5, TimeUnit.SECONDS));
+            }
+            writtenStatuses.add(written.getStatus());
+            return 1;
+        }).when(gameRepository).updateLiveState(any());
+
+        play("e2e4");
+        CompletableFuture<Void> periodic = CompletableFuture.runAsync(service::flushDirty);
+        assertTrue(periodicWriting.await(5, TimeUnit.SECONDS));
+
+        // The game ends while the periodic flush is still writing its IN_PROGRESS snapshot
+        CompletableFuture<Boolean> finalFlush = dispatcher.submit(GAME_ID, () -> {
+            live.appendMove(move("e7e5"), 0);
+            live.getGame().setStatus(GameStatus.COMPLETED);
+            live.markReleased();
+            live.markDirty();
+            return service.flush(live);
+        });
+        Thread.sleep(200);
+        assertFalse(finalFlush.isDone(), "final flush did not wait for the older snapshot");
+
+        periodicMayCommit.countDown();
+        periodic.get(5, TimeUnit.SECONDS);
+        assertTrue(finalFlush.get(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of(GameStatus.IN_PROGRESS, GameStatus.COMPLETED), writtenStatuses);
+        InOrder order = inOrder(gameRepository, moveRepository);
+        order.verify(gameRepository).updateLiveState(argThat(g -> g.getStatus() == GameStatus.IN_PROGRESS));
+        order.verify(gameRepository).getReferenceById(GAME_ID);
+        order.verify(moveRepository).saveAll(anyIterable());
+        order.verify(gameRepository).updateLiveState(argThat(g -> g.getStatus() == GameStatus.COMPLETED));
+        order.verify(gameRepository).updateFinalRecord(eq(GAME_ID), any(), any(), any());
+        order.verify(moveRepository).deleteByGameId(GAME_ID);
+        assertEquals(List.of("e2e4"), insertedMoves);
+    }
+
+    @Test
+    void movesOfAFailedFlushAreWrittenByTheNextOne() {
+        when(gameRepository.updateLiveState(any()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(1);
+
+        play("e2e4");
+        service.flushDirty();
+        assertTrue(dispatcher.execute(GAME_ID, live::isDirty), "failed flush left the game clean");
+
+        play("e7e5");
+        service.flushDirty();
+
+        assertEquals(List.of("e2e4", "e7e5"), insertedMoves);
+        assertFalse(dispatcher.execute(GAME_ID, live::isDirty));
+    }
+
+    private void play(String uci) {
+        dispatcher.execute(GAME_ID, () -> {
+            live.appendMove(move(uci), 0);
+            return null;
+        });
+    }
+
+    private static Move move(String uci) {
+        return Move.builder().notation(uci).build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.indichess.matchservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import static com.indichess.matchservice.service.PositionIndex.BLACK_WIN;
+import static com.indichess.matchservice.service.PositionIndex.DRAW;
+import static com.indichess.matchservice.service.PositionIndex.WHITE_WIN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PositionIndexTest {
+    private static final long START = 0x463b96181691fc9cL;
+    private static final long AFTER_E4 = 0x823c9b50fd114196L;
+    private static final long AFTER_D4 = 0x0756b2c8a0a3a1f2L;
+    private static final long AFTER_E4_E5 = 0x0844931a0ef4d2b7L;
+    private static final short E2E4 = 1;
+    private static final short D2D4 = 2;
+    private static final short E7E5 = 3;
+
+    private final PositionIndex index = new PositionIndex();
+
+    @Test
+    void unknownPositionHasNoStats() {
+        assertNull(index.lookup(START));
+    }
+
+    @Test
+    void totalsAreKeptPerPositionAndPerMove() {
+        index.addGame(1, new long[] { START, AFTER_E4, AFTER_E4_E5 }, new short[] { E2E4, E7E5 }, WHITE_WIN);
+        index.addGame(2, new long[] { START, AFTER_E4 }, new short[] { E2E4 }, DRAW);
+        index.addGame(3, new long[] { START, AFTER_D4 }, new short[] { D2D4 }, BLACK_WIN);
+
+        PositionIndex.PositionStats start = index.lookup(START);
+        assertStats(start, 1, 1, 1);
+        assertEquals(2, start.moves().size());
+        // Most played first
+        PositionIndex.MoveStats e4 = start.moves().get(0);
+        assertEquals(E2E4, e4.move());
+        assertEquals(1, e4.whiteWins());
+        assertEquals(1, e4.draws());
+        assertEquals(0, e4.blackWins());
+        PositionIndex.MoveStats d4 = start.moves().get(1);
+        assertEquals(D2D4, d4.move());
+        assertEquals(1, d4.blackWins());
+
+        assertStats(index.lookup(AFTER_E4), 1, 1, 0);
+        assertEquals(1, index.lookup(AFTER_E4).moves().size());
+        // Final positions are counted but have no moves
+        assertStats(index.lookup(AFTER_E4_E5), 1, 0, 0);
+        assertTrue(index.lookup(AFTER_E4_E5).moves().isEmpty());
+        assertEquals(4, index.getPositionCount());
+        assertEquals(3, index.getGameCount());
+    }
+
+    @Test
+    void gameIsAddedOnlyOnce() {
+        assertTrue(index.addGame(1, new long[] { START, AFTER_E4 }, new short[] { E2E4 }, WHITE_WIN));
+        assertFalse(index.addGame(1, new long[] { START, AFTER_E4 }, new short[] { E2E4 }, WHITE_WIN));
+
+        assertStats(index.lookup(START), 1, 0, 0);
+        assertEquals(1, index.getGameCount());
+    }
+
+    @Test
+    void repeatedPositionCountsOncePerGame() {
+        long[] keys = { START, AFTER_E4, START, AFTER_E4 };
+        short[] moves = { E2E4, 9, E2E4 };
+
+        index.addGame(1, keys, moves, DRAW);
+
+        PositionIndex.PositionStats start = index.lookup(START);
+        assertStats(start, 0, 1, 0);
+        assertEquals(1, start.moves().size());
+        assertEquals(1, start.moves().get(0).games());
+    }
+
+    @Test
+    void tablesGrowPastTheirInitialCapacity() {
+        int games = 40_000;
+        for (int game = 1; game <= games; game++) {
+            // Every game reaches its own position through its own move
+            index.addGame(game, new long[] { START, START + game }, new short[] { (short) game }, game % 3);
+        }
+
+        assertEquals(games, index.getGameCount());
+        assertEquals(games + 1, index.getPositionCount());
+        PositionIndex.PositionStats start = index.lookup(START);
+        assertEquals(games, start.games());
+        assertEquals(games, start.moves().size());
+        for (int game = 1; game <= games; game++) {
+            PositionIndex.PositionStats stats = index.lookup(START + game);
+            assertNotNull(stats, "position of game " + game);
+            assertEquals(1, stats.games());
+        }
+        assertFalse(index.addGame(games, new long[] { START }, new short[0], DRAW));
+    }
+
+    private static void assertStats(PositionIndex.PositionStats stats, int whiteWins, int draws, int blackWins) {
+        assertNotNull(stats);
+        assertEquals(whiteWins, stats.whiteWins());
+        assertEquals(draws, stats.draws());
+        assertEquals(blackWins, stats.blackWins());
+    }
+}
@@ -0,0 +1,93 @@
+package com.indichess.matchservice.service;
+
+import com.indichess.common.dto.UserDTO;
+import com.indichess.matchservice.model.TimeControl;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RatingPoolTest {
+    // Windows never widen: only equal ratings match, so players can share a bucket without pairing
+    private final RatingPool pool = new RatingPool(new SearchWindow(0, 0, 0));
+
+    @Test
+    void requeuedPlayerGoesBackToTheHeadOfItsBucket() {
+        MatchTicket first = offer("first", 1500, 0);
+        MatchTicket second = offer("second", 1501, 1000);
+        assertSame(first, pool.pollOrOffer(ticket("taker", 1500, 2000), 2000));
+
+        // Creating the game failed
+        MatchTicket requeued = requeue(first);
+
+        assertEquals(1, pool.positionOf(requeued));
+        assertEquals(2, pool.positionOf(second));
+        // Only bucket heads are probed; behind the later player it would not be found
+        assertSame(requeued, pool.pollOrOffer(ticket("next", 1500, 3000), 3000));
+    }
+
+    @Test
+    void requeuedPlayersKeepTheirJoinOrder() {
+        MatchTicket first = offer("first", 1500, 0);
+        MatchTicket second = offer("second", 1501, 1000);
+        assertSame(first, pool.pollOrOffer(ticket("a", 1500, 2000), 2000));
+        assertSame(second, pool.pollOrOffer(ticket("b", 1501, 2000), 2000));
+
+        MatchTicket secondBack = requeue(second);
+        MatchTicket firstBack = requeue(first);
+
+        assertEquals(1, pool.positionOf(firstBack));
+        assertEquals(2, pool.positionOf(secondBack));
+        assertSame(firstBack, pool.pollOrOffer(ticket("c", 1500, 3000), 3000));
+        assertSame(secondBack, pool.pollOrOffer(ticket("d", 1501, 3000), 3000));
+    }
+
+    @Test
+    void requeueAfterSlotsWereRenumberedKeepsPositionsExact() {
+        MatchTicket first = offer("first", 1500, 0);
+        assertSame(first, pool.pollOrOffer(ticket("taker", 1500, 1), 1));
+        // Enough churn to renumber the slots past the first player's sequence
+        for (int i = 0; i < 3000; i++) {
+            MatchTicket passing = offer("passing-" + i, i % 1400, 2);
+            pool.cancel(passing);
+        }
+        MatchTicket later = offer("later", 2000, 3);
+
+        MatchTicket requeued = requeue(first);
+
+        assertEquals(1, pool.positionOf(requeued));
+        assertEquals(2, pool.positionOf(later));
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    void playerWhoLeftIsNotRequeued() {
+        MatchTicket first = offer("first", 1500, 0);
+        assertSame(first, pool.pollOrOffer(ticket("taker", 1500, 1), 1));
+        MatchTicket fresh = ticket("first", 1500, 0);
+        fresh.claim();
+
+        pool.requeue(fresh, first.getSequence());
+
+        assertEquals(0, pool.size());
+        assertNull(pool.pollOrOffer(ticket("next", 1500, 2), 2));
+    }
+
+    private MatchTicket offer(String username, int rating, long joinedAt) {
+        MatchTicket ticket = ticket(username, rating, joinedAt);
+        assertNull(pool.pollOrOffer(ticket, joinedAt));
+        return ticket;
+    }
+
+    private MatchTicket requeue(MatchTicket claimed) {
+        MatchTicket fresh = new MatchTicket(claimed.getUser(), claimed.getTimeControl(), claimed.getJoinedAt());
+        pool.requeue(fresh, claimed.getSequence());
+        return fresh;
+    }
+
+    private static MatchTicket ticket(String username, int rating, long joinedAt) {
+        UserDTO user = UserDTO.builder().username(username).rating(rating).build();
+        return new MatchTicket(user, TimeControl.RAPID, joinedAt);
+    }
+}
@@ -1,13 +1,19 @@
 package com.indichess.userservice.controller;
 
+import com.indichess.common.dto.UserBatchRequest;
 import com.indichess.common.dto.UserDTO;
 import com.indichess.userservice.security.UserPrincipal;
 import com.indichess.userservice.service.AuthService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/users")
 @RequiredArgsConstructor
@@ -20,6 +26,13 @@ public class UserController {
         return ResponseEntity.ok(user);
     }
 
+    @PutMapping("/{id}/enabled")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<UserDTO> setEnabled(@PathVariable Long id, @RequestBody Map<String, Boolean> request) {
+        boolean enabled = Boolean.TRUE.equals(request.get("enabled"));
+        return ResponseEntity.ok(authService.setEnabled(id, enabled));
+    }
+
     // Internal endpoints for service-to-service communication
     @GetMapping("/internal/by-username/{username}")
     public ResponseEntity<UserDTO> getUserByUsername(@PathVariable String username) {
@@ -38,4 +51,9 @@ public class UserController {
         }
         return ResponseEntity.ok(user);
     }
+
+    @PostMapping("/internal/batch")
+    public ResponseEntity<List<UserDTO>> getUsers(@Valid @RequestBody UserBatchRequest request) {
+        return ResponseEntity.ok(authService.getUsers(request));
+    }
 }
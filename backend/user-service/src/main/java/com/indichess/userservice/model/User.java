@@ -43,6 +43,10 @@ public class User {
     @Builder.Default
     private Set<Role> roles = new HashSet<>();
 
+    @Column(name = "rating", nullable = false)
+    @Builder.Default
+    private Integer rating = 1200;
+
     @Column(name = "enabled")
     @Builder.Default
     private Boolean enabled = true;
@@ -0,0 +1,12 @@
+package com.indichess.userservice.repository;
+
+/**
+ * The columns that have to be unique across users.
+ */
+public interface UserIdentityView {
+    Long getId();
+
+    String getUsername();
+
+    String getEmail();
+}
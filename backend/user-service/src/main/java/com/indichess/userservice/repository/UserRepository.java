@@ -1,9 +1,17 @@
 package com.indichess.userservice.repository;
 
+import com.indichess.common.dto.UserDTO;
 import com.indichess.userservice.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,4 +23,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
+
+    @Query("SELECT u.id AS id, u.username AS username, u.email AS email FROM User u "
+            + "WHERE u.id > :afterId ORDER BY u.id")
+    List<UserIdentityView> findIdentitiesAfter(@Param("afterId") Long afterId, Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    void updatePassword(@Param("id") Long id, @Param("password") String password);
+
+    @Query("SELECT u.username FROM User u WHERE u.enabled = false")
+    List<String> findUsernamesByEnabledFalse();
+
+    // Public fields only; selecting into the DTO skips the roles join
+
+    @Query("SELECT new com.indichess.common.dto.UserDTO(u.id, u.username, u.email, u.provider, u.rating, u.createdAt) "
+            + "FROM User u WHERE u.id IN :ids")
+    List<UserDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.indichess.common.dto.UserDTO(u.id, u.username, u.email, u.provider, u.rating, u.createdAt) "
+            + "FROM User u WHERE u.username IN :usernames")
+    List<UserDTO> findSummariesByUsernameIn(@Param("usernames") Collection<String> usernames);
 }
@@ -2,6 +2,8 @@ package com.indichess.userservice.security;
 
 import com.indichess.userservice.service.CustomUserDetailsService;
 import com.indichess.userservice.service.JwtService;
+import com.indichess.userservice.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,12 +18,20 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
 
+/**
+ * Authenticates requests from the bearer token alone: the principal and its
+ * authorities are rebuilt from the token's claims, and only revocation is
+ * checked. Tokens issued before the claims were added fall back to loading
+ * the user.
+ */
 @Component
 @RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(
@@ -31,7 +41,6 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -41,12 +50,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
 
         try {
-            username = jwtService.extractUsername(jwt);
+            Claims claims = jwtService.extractAllClaims(jwt);
+            String username = claims.getSubject();
 
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null
+                    && !tokenRevocationService.isRevoked(username, claims.getIssuedAt())) {
+                UserDetails userDetails = principalOf(claims);
+                if (userDetails.isEnabled()) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -61,4 +71,14 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails principalOf(Claims claims) {
+        Object authorities = claims.get(JwtService.CLAIM_AUTHORITIES);
+        if (!(authorities instanceof Collection<?> names)) {
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        Number userId = claims.get(JwtService.CLAIM_USER_ID, Number.class);
+        return new UserPrincipal(userId != null ? userId.longValue() : null, claims.getSubject(),
+                names.stream().map(String::valueOf).toList());
+    }
 }
@@ -2,40 +2,61 @@ package com.indichess.userservice.security;
 
 import com.indichess.userservice.model.User;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * The authenticated user. Built from the {@link User} entity when logging in,
+ * and from the token's claims on every later request.
+ */
 @Getter
-@RequiredArgsConstructor
 public class UserPrincipal implements UserDetails {
-    private final User user;
+    private final Long id;
+    private final String username;
+    private final String password;
+    private final Set<GrantedAuthority> authorities;
+    private final boolean enabled;
 
-    @Override
-    public Collection<? extends GrantedAuthority> getAuthorities() {
-        return user.getRoles().stream()
+    public UserPrincipal(User user) {
+        this.id = user.getId();
+        this.username = user.getUsername();
+        this.password = user.getPassword();
+        this.authorities = user.getRoles().stream()
                 .flatMap(role -> {
                     var authorities = role.getPermissions().stream()
-                            .map(permission -> new SimpleGrantedAuthority(permission.getName()))
+                            .map(permission -> (GrantedAuthority) new SimpleGrantedAuthority(permission.getName()))
                             .collect(Collectors.toList());
                     authorities.add(new SimpleGrantedAuthority(role.getName()));
                     return authorities.stream();
                 })
                 .collect(Collectors.toSet());
+        this.enabled = user.getEnabled();
     }
 
-    @Override
-    public String getPassword() {
-        return user.getPassword();
+    // A token is only issued to an enabled user; disabled users' tokens are revoked before this point
+    public UserPrincipal(Long id, String username, Collection<String> authorities) {
+        this.id = id;
+        this.username = username;
+        this.password = null;
+        this.authorities = authorities.stream()
+                .map(authority -> (GrantedAuthority) new SimpleGrantedAuthority(authority))
+                .collect(Collectors.toSet());
+        this.enabled = true;
+    }
+
+    public List<String> getAuthorityNames() {
+        return authorities.stream().map(GrantedAuthority::getAuthority).sorted().toList();
     }
 
     @Override
-    public String getUsername() {
-        return user.getUsername();
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
     }
 
     @Override
@@ -52,9 +73,4 @@ public class UserPrincipal implements UserDetails {
     public boolean isCredentialsNonExpired() {
         return true;
     }
-
-    @Override
-    public boolean isEnabled() {
-        return user.getEnabled();
-    }
 }
@@ -3,96 +3,167 @@ package com.indichess.userservice.service;
 import com.indichess.common.dto.AuthResponse;
 import com.indichess.common.dto.LoginRequest;
 import com.indichess.common.dto.RegisterRequest;
+import com.indichess.common.dto.UserBatchRequest;
 import com.indichess.common.dto.UserDTO;
+import com.indichess.common.exception.ResourceNotFoundException;
+import com.indichess.common.exception.ServiceOverloadedException;
 import com.indichess.common.exception.UserAlreadyExistsException;
 import com.indichess.userservice.model.Role;
 import com.indichess.userservice.model.User;
 import com.indichess.userservice.repository.RoleRepository;
 import com.indichess.userservice.repository.UserRepository;
+import com.indichess.userservice.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.AuthenticationManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuthService {
+    private static final String DEFAULT_ROLE = "ROLE_USER";
+
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtService jwtService;
-    private final AuthenticationManager authenticationManager;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserAvailabilityIndex userAvailabilityIndex;
+    // Boot's application task executor; the hashing pool only ever runs BCrypt
+    private final AsyncTaskExecutor taskExecutor;
 
-    @Transactional
-    public AuthResponse register(RegisterRequest request) {
-        // Check if username exists
-        if (userRepository.existsByUsername(request.getUsername())) {
+    private volatile Role defaultRole;
+
+    public CompletableFuture<AuthResponse> register(RegisterRequest request) {
+        if (isUsernameTaken(request.getUsername())) {
             throw new UserAlreadyExistsException("username", request.getUsername());
         }
-
-        // Check if email exists
-        if (userRepository.existsByEmail(request.getEmail())) {
+        if (isEmailTaken(request.getEmail())) {
             throw new UserAlreadyExistsException("email", request.getEmail());
         }
 
-        // Get default user role
-        Role userRole = roleRepository.findByName("ROLE_USER")
-                .orElseThrow(() -> new RuntimeException("Default role not found"));
-
-        // Create new user
-        User user = User.builder()
-                .username(request.getUsername())
-                .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
-                .provider("LOCAL")
-                .roles(Set.of(userRole))
-                .enabled(true)
-                .build();
+        Role userRole = getDefaultRole();
+
+        return passwordHashingService.encode(request.getPassword()).thenApplyAsync(passwordHash -> {
+            // Create new user
+            User user = User.builder()
+                    .username(request.getUsername())
+                    .email(request.getEmail())
+                    .password(passwordHash)
+                    .provider("LOCAL")
+                    .roles(Set.of(userRole))
+                    .enabled(true)
+                    .build();
+
+            try {
+                user = userRepository.save(user);
+            } catch (DataIntegrityViolationException e) {
+                // Taken by a registration the index has not seen yet
+                throw userRepository.existsByUsername(request.getUsername())
+                        ? new UserAlreadyExistsException("username", request.getUsername())
+                        : new UserAlreadyExistsException("email", request.getEmail());
+            }
+            userAvailabilityIndex.add(user.getUsername(), user.getEmail());
+
+            // Generate token
+            String token = jwtService.generateToken(new UserPrincipal(user));
+
+            return AuthResponse.builder()
+                    .token(token)
+                    .username(user.getUsername())
+                    .userId(user.getId())
+                    .message("Registration successful")
+                    .build();
+        }, taskExecutor);
+    }
 
-        user = userRepository.save(user);
+    /**
+     * Reports which of the given username and email are still free; null arguments are left out.
+     */
+    public Map<String, Boolean> checkAvailability(String username, String email) {
+        Map<String, Boolean> available = new LinkedHashMap<>();
+        if (username != null) {
+            available.put("username", !isUsernameTaken(username));
+        }
+        if (email != null) {
+            available.put("email", !isEmailTaken(email));
+        }
+        return available;
+    }
 
-        // Generate token
-        String token = jwtService.generateToken(user.getUsername());
+    private boolean isUsernameTaken(String username) {
+        return userAvailabilityIndex.isReady()
+                ? userAvailabilityIndex.isUsernameTaken(username)
+                : userRepository.existsByUsername(username);
+    }
 
-        return AuthResponse.builder()
-                .token(token)
-                .username(user.getUsername())
-                .userId(user.getId())
-                .message("Registration successful")
-                .build();
+    private boolean isEmailTaken(String email) {
+        return userAvailabilityIndex.isReady()
+                ? userAvailabilityIndex.isEmailTaken(email)
+                : userRepository.existsByEmail(email);
     }
 
-    public AuthResponse login(LoginRequest request) {
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            request.getUsername(),
-                            request.getPassword()));
-
-            if (authentication.isAuthenticated()) {
-                User user = userRepository.findByUsername(request.getUsername())
-                        .orElseThrow(() -> new BadCredentialsException("User not found"));
-
-                String token = jwtService.generateToken(user.getUsername());
-
-                return AuthResponse.builder()
-                        .token(token)
-                        .username(user.getUsername())
-                        .userId(user.getId())
-                        .message("Login successful")
-                        .build();
-            }
-        } catch (Exception e) {
-            throw new BadCredentialsException("Invalid username or password");
+    // Roles are seeded by migrations and never change at runtime
+    private Role getDefaultRole() {
+        Role role = defaultRole;
+        if (role == null) {
+            role = roleRepository.findByName(DEFAULT_ROLE)
+                    .orElseThrow(() -> new RuntimeException("Default role not found"));
+            defaultRole = role;
         }
+        return role;
+    }
 
-        throw new BadCredentialsException("Invalid username or password");
+    public CompletableFuture<AuthResponse> login(LoginRequest request) {
+        User user = userRepository.findByUsername(request.getUsername()).orElse(null);
+        String storedHash = user != null ? user.getPassword() : null;
+
+        return passwordHashingService.matches(request.getPassword(), storedHash).thenApplyAsync(matches -> {
+            if (!matches || !user.getEnabled()) {
+                throw new BadCredentialsException("Invalid username or password");
+            }
+            upgradePasswordHash(user, request.getPassword());
+
+            UserPrincipal principal = new UserPrincipal(user);
+            String token = jwtService.generateToken(principal);
+
+            return AuthResponse.builder()
+                    .token(token)
+                    .username(principal.getUsername())
+                    .userId(principal.getId())
+                    .message("Login successful")
+                    .build();
+        }, taskExecutor);
+    }
+
+    // Re-hashes a password stored below the configured cost, in the background and only if there is room
+    private void upgradePasswordHash(User user, String rawPassword) {
+        if (!passwordHashingService.needsUpgrade(user.getPassword())) {
+            return;
+        }
+        try {
+            passwordHashingService.encode(rawPassword)
+                    .thenAcceptAsync(passwordHash -> userRepository.updatePassword(user.getId(), passwordHash),
+                            taskExecutor)
+                    .exceptionally(e -> {
+                        log.warn("Could not upgrade password hash of user {}", user.getId(), e);
+                        return null;
+                    });
+        } catch (ServiceOverloadedException e) {
+            // Upgraded on a later login
+        }
     }
 
     public UserDTO getUserByUsername(String username) {
@@ -107,6 +178,7 @@ public class AuthService {
                 .username(user.getUsername())
                 .email(user.getEmail())
                 .provider(user.getProvider())
+                .rating(user.getRating())
                 .createdAt(user.getCreatedAt())
                 .build();
     }
@@ -123,7 +195,42 @@ public class AuthService {
                 .username(user.getUsername())
                 .email(user.getEmail())
                 .provider(user.getProvider())
+                .rating(user.getRating())
                 .createdAt(user.getCreatedAt())
                 .build();
     }
+
+    /**
+     * Looks up all requested users by id and by username; unknown ones are left out.
+     */
+    @Transactional(readOnly = true)
+    public List<UserDTO> getUsers(UserBatchRequest request) {
+        List<UserDTO> users = new ArrayList<>();
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            users.addAll(userRepository.findSummariesByIdIn(new LinkedHashSet<>(request.getIds())));
+        }
+        if (request.getUsernames() != null && !request.getUsernames().isEmpty()) {
+            users.addAll(userRepository.findSummariesByUsernameIn(new LinkedHashSet<>(request.getUsernames())));
+        }
+        return users;
+    }
+
+    /**
+     * Enables or disables an account. Disabling revokes the user's tokens at
+     * once; tokens from before a re-enable stay revoked.
+     */
+    @Transactional
+    public UserDTO setEnabled(Long id, boolean enabled) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
+        user.setEnabled(enabled);
+        userRepository.save(user);
+
+        if (enabled) {
+            tokenRevocationService.revokeIssuedBeforeNow(user.getUsername());
+        } else {
+            tokenRevocationService.revokeAll(user.getUsername());
+        }
+        return getUserById(id);
+    }
 }
@@ -0,0 +1,62 @@
+package com.indichess.userservice.service;
+
+import com.indichess.userservice.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens are trusted without loading the user, so this is where tokens of
+ * disabled users are turned away. A disabled user's tokens are all revoked;
+ * after re-enabling, tokens issued before that stay revoked until they would
+ * have expired anyway.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+    private static final long ALL = Long.MAX_VALUE;
+
+    private final UserRepository userRepository;
+    private final long jwtExpiration;
+
+    // username -> tokens issued before this instant are revoked
+    private final ConcurrentHashMap<String, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    public TokenRevocationService(UserRepository userRepository, @Value("${jwt.expiration}") long jwtExpiration) {
+        this.userRepository = userRepository;
+        this.jwtExpiration = jwtExpiration;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadDisabledUsers() {
+        userRepository.findUsernamesByEnabledFalse().forEach(this::revokeAll);
+        log.info("Revoked tokens of {} disabled users", revokedBefore.size());
+    }
+
+    public void revokeAll(String username) {
+        revokedBefore.put(username, ALL);
+    }
+
+    public void revokeIssuedBeforeNow(String username) {
+        // Tokens carry whole seconds; a token issued in this same second stays valid
+        revokedBefore.put(username, System.currentTimeMillis() / 1000 * 1000);
+    }
+
+    public boolean isRevoked(String username, Date issuedAt) {
+        Long before = revokedBefore.get(username);
+        if (before == null) {
+            return false;
+        }
+        if (before != ALL && System.currentTimeMillis() - before > jwtExpiration) {
+            // Every token this entry could revoke has expired
+            revokedBefore.remove(username, before);
+            return false;
+        }
+        return issuedAt == null || issuedAt.getTime() < before;
+    }
+}
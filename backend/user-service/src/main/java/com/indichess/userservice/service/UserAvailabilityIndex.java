@@ -0,0 +1,94 @@
+package com.indichess.userservice.service;
+
+import com.indichess.userservice.repository.UserIdentityView;
+import com.indichess.userservice.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of taken usernames and emails, so availability checks and
+ * registration don't have to query the users table. Only 64-bit fingerprints
+ * of the lower-cased values are kept. The index is filled from the table at
+ * startup and updated as users register; until it is filled, it answers
+ * nothing and callers go to the database.
+ * <p>
+ * It only sees registrations made through this instance, so "free" is a fast
+ * path, not a guarantee: the unique constraints remain the final check.
+ */
+@Slf4j
+@Service
+public class UserAvailabilityIndex {
+    private static final int WARM_UP_BATCH = 10_000;
+
+    private final UserRepository userRepository;
+
+    private final Set<Long> usernames = ConcurrentHashMap.newKeySet();
+    private final Set<Long> emails = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public UserAvailabilityIndex(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long afterId = 0;
+        int count = 0;
+        List<UserIdentityView> batch;
+        do {
+            batch = userRepository.findIdentitiesAfter(afterId, PageRequest.ofSize(WARM_UP_BATCH));
+            for (UserIdentityView user : batch) {
+                add(user.getUsername(), user.getEmail());
+                afterId = user.getId();
+            }
+            count += batch.size();
+        } while (batch.size() == WARM_UP_BATCH);
+        ready = true;
+        log.info("Indexed {} usernames and emails", count);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void add(String username, String email) {
+        if (username != null) {
+            usernames.add(fingerprint(username));
+        }
+        if (email != null) {
+            emails.add(fingerprint(email));
+        }
+    }
+
+    public boolean isUsernameTaken(String username) {
+        return usernames.contains(fingerprint(username));
+    }
+
+    public boolean isEmailTaken(String email) {
+        return emails.contains(fingerprint(email));
+    }
+
+    // FNV-1a with a MurmurHash3 finalizer over the lower-cased value; MySQL compares these columns case-insensitively
+    private static long fingerprint(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe1a85ec3L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
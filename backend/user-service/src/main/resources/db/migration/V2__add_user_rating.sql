@@ -0,0 +1,4 @@
+-- V2__add_user_rating.sql
+-- Playing strength used by matchmaking
+ALTER TABLE users
+ADD COLUMN rating INT NOT NULL DEFAULT 1200;
@@ -1,6 +1,7 @@
-import React, { useState } from "react";
+import React, { useEffect, useState } from "react";
 import { useNavigate } from "react-router-dom";
 import { useAuth } from "../context/AuthContext";
+import api from "../services/api";
 
 function SignupCard({ handleToggleSignup }) {
   const navigate = useNavigate();
@@ -12,6 +13,23 @@ function SignupCard({ handleToggleSignup }) {
   const [country, setCountry] = useState("");
   const [error, setError] = useState("");
   const [loading, setLoading] = useState(false);
+  const [usernameTaken, setUsernameTaken] = useState(false);
+
+  // Check the name as the user types, once they pause
+  useEffect(() => {
+    setUsernameTaken(false);
+    if (username.length < 4 || username.length > 50) return;
+
+    const timer = setTimeout(async () => {
+      try {
+        const response = await api.get("/auth/availability", { params: { username } });
+        setUsernameTaken(response.data.username === false);
+      } catch (err) {
+        // The server still checks on submit
+      }
+    }, 300);
+    return () => clearTimeout(timer);
+  }, [username]);
 
   const handleSignup = async (e) => {
     e.preventDefault();
@@ -84,6 +102,7 @@ function SignupCard({ handleToggleSignup }) {
             maxLength={50}
             disabled={loading}
           />
+          {usernameTaken && <p className="error-message">That username is already taken</p>}
         </div>
 
         <div className="input-group">
@@ -1,6 +1,7 @@
 import React, { useState, useRef, useEffect } from "react";
 import { useNavigate } from "react-router-dom";
 import { FaFire, FaRegHandshake, FaRobot, FaChessPawn, FaTimes } from "react-icons/fa";
+import socketService from "../../services/socket";
 import "../component-styles/GameInfo.css";
 
 // Helper to get auth headers
@@ -16,26 +17,31 @@ const GameInfo = ({ streak }) => {
   const navigate = useNavigate();
   const [isSearching, setIsSearching] = useState(false);
   const [searchTime, setSearchTime] = useState(0);
-  const pollingIntervalRef = useRef(null);
   const searchTimerRef = useRef(null);
+  const searchingRef = useRef(false);
+  const unsubscribeRef = useRef(null);
 
   // Clean up on unmount
   useEffect(() => {
-    return () => {
-      if (pollingIntervalRef.current) clearInterval(pollingIntervalRef.current);
-      if (searchTimerRef.current) clearTimeout(searchTimerRef.current);
-    };
+    return () => stopSearch();
   }, []);
 
-  const cancelSearch = async () => {
-    if (pollingIntervalRef.current) {
-      clearInterval(pollingIntervalRef.current);
-      pollingIntervalRef.current = null;
-    }
+  const stopSearch = () => {
+    searchingRef.current = false;
     if (searchTimerRef.current) {
-      clearTimeout(searchTimerRef.current);
+      clearInterval(searchTimerRef.current);
       searchTimerRef.current = null;
     }
+    if (unsubscribeRef.current) {
+      unsubscribeRef.current();
+      unsubscribeRef.current = null;
+    }
+    setIsSearching(false);
+    setSearchTime(0);
+  };
+
+  const cancelSearch = async () => {
+    stopSearch();
 
     // Notify backend to remove from waiting queue
     try {
@@ -47,57 +53,75 @@ const GameInfo = ({ streak }) => {
     } catch (error) {
       console.error("Error cancelling search:", error);
     }
+  };
 
-    setIsSearching(false);
-    setSearchTime(0);
+  const matchFound = (gameId) => {
+    if (!searchingRef.current) return;
+    stopSearch();
+    navigate(`/game/${gameId}`);
+  };
+
+  // Asks whether a match has been made; with waitSeconds the server holds the
+  // request until the match is made or the wait runs out
+  const checkMatch = async (waitSeconds) => {
+    const response = await fetch(`http://localhost:8080/game/check-match?waitSeconds=${waitSeconds}`, {
+      method: 'GET',
+      headers: getAuthHeaders(),
+      credentials: 'include',
+    });
+    if (!response.ok) {
+      throw new Error(`check-match failed with ${response.status}`);
+    }
+    const result = await response.json();
+    if (result.matchId && result.matchId > 0) {
+      matchFound(result.matchId);
+    } else if (result.matchId === -2 && searchingRef.current) {
+      stopSearch();
+      alert("Error checking for match. Please try again.");
+    }
+    return result.matchId;
   };
 
-  const pollForMatch = () => {
+  // Fallback when the socket cannot be used: one parked request at a time
+  const longPollForMatch = async () => {
+    while (searchingRef.current) {
+      try {
+        const matchId = await checkMatch(25);
+        if (matchId !== -1) return;
+      } catch (error) {
+        console.error("Error polling for match:", error);
+        await new Promise(resolve => setTimeout(resolve, 2000));
+      }
+    }
+  };
+
+  const waitForMatch = async () => {
+    searchingRef.current = true;
     let attempts = 0;
     const maxAttempts = 90; // 90 seconds
 
-    pollingIntervalRef.current = setInterval(async () => {
+    searchTimerRef.current = setInterval(() => {
       attempts++;
       setSearchTime(attempts);
-
       if (attempts >= maxAttempts) {
         cancelSearch();
         alert("Could not find an opponent within 90 seconds. Please try again.");
-        return;
       }
+    }, 1000);
 
-      try {
-        const response = await fetch('http://localhost:8080/game/check-match', {
-          method: 'GET',
-          headers: getAuthHeaders(),
-          credentials: 'include',
-        });
-
-        if (response.ok) {
-          const result = await response.json();
-          console.log("Poll result:", result);
-
-          if (result.matchId && result.matchId > 0) {
-            // Match found! Stop polling and redirect
-            clearInterval(pollingIntervalRef.current);
-            pollingIntervalRef.current = null;
-            clearTimeout(searchTimerRef.current);
-            searchTimerRef.current = null;
-
-            setIsSearching(false);
-            setSearchTime(0);
-            navigate(`/game/${result.matchId}`);
-          } else if (result.matchId === -2) {
-            // Error case
-            cancelSearch();
-            alert("Error checking for match. Please try again.");
-          }
-          // If matchId === -1, continue waiting
-        }
-      } catch (error) {
-        console.error("Error polling for match:", error);
-      }
-    }, 1000); // Poll every second
+    // The server pushes the match to /user/queue/match-found
+    try {
+      socketService.routeTo(null);
+      await socketService.connect();
+      if (!searchingRef.current) return;
+      unsubscribeRef.current = socketService.subscribe('/user/queue/match-found',
+        (match) => matchFound(match.gameId));
+      // The match may have been made before the subscription was in place
+      await checkMatch(0);
+    } catch (error) {
+      console.warn("Match notifications unavailable, falling back to long polling:", error);
+      longPollForMatch();
+    }
   };
 
   const createNewGame = async () => {
@@ -121,17 +145,8 @@ const GameInfo = ({ streak }) => {
         console.log("Create game response:", result);
 
         if (result.matchId === -1) {
-          // Player1: Waiting for opponent, start polling
-          pollForMatch();
-
-          // Set timeout for 90 seconds
-          searchTimerRef.current = setTimeout(() => {
-            if (isSearching) {
-              cancelSearch();
-              alert("Could not find an opponent within 90 seconds. Please try again.");
-            }
-          }, 90000);
-
+          // Player1: Waiting for opponent
+          waitForMatch();
         } else if (result.matchId > 0) {
           // Player2: Match created immediately, redirect
           setIsSearching(false);
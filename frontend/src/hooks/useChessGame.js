@@ -1,6 +1,29 @@
-import { useState, useCallback, useEffect } from 'react';
+import { useState, useCallback, useEffect, useRef } from 'react';
 import { Chess } from 'chess.js';
 import socketService from '../services/socket';
+import api from '../services/api';
+
+// Rebuilds the board from the space-separated UCI move list the server keeps as pgn
+function replayPgn(pgn, fen) {
+    if (!pgn) {
+        return new Chess(fen);
+    }
+    try {
+        const newGame = new Chess();
+        for (const moveStr of pgn.split(" ")) {
+            if (!moveStr) continue;
+            newGame.move({
+                from: moveStr.substring(0, 2),
+                to: moveStr.substring(2, 4),
+                promotion: moveStr.length > 4 ? moveStr.substring(4) : undefined
+            });
+        }
+        return newGame;
+    } catch (e) {
+        console.error("PGN replay failed", e);
+        return new Chess(fen);
+    }
+}
 
 export function useChessGame(gameId = 1) { // Default gameId 1 for Phase 1
     const [game, setGame] = useState(new Chess());
@@ -13,59 +36,95 @@ export function useChessGame(gameId = 1) { // Default gameId 1 for Phase 1
     const [blackTime, setBlackTime] = useState(600);
     const [gameOver, setGameOver] = useState(false);
     const [gameResult, setGameResult] = useState("");
+    // Ply of the last update applied; deltas carry it as seq
+    const lastSeq = useRef(null);
+    const board = useRef(game);
 
     // WebSocket Connection using centralized socket service
     useEffect(() => {
         let unsubscribe = null;
+        let unsubscribeErrors = null;
 
-        const handleGameUpdate = (body) => {
-            console.log("Received:", body);
+        const applyStatus = (body) => {
+            setWhiteTime(Math.floor(body.whiteTimeRemaining / 1000));
+            setBlackTime(Math.floor(body.blackTimeRemaining / 1000));
+            if (body.status === 'COMPLETED' || body.status === 'DRAW') {
+                setGameOver(true);
+                setGameResult(body.statusMessage || "Game Over");
+            }
+        };
 
-            if (body.type === 'MOVE') {
-                // Update Game State
-                if (body.pgn) {
-                    try {
-                        const newGame = new Chess();
-                        const moves = body.pgn.split(" ");
-                        for (const moveStr of moves) {
-                            if (!moveStr) continue;
-                            newGame.move({
-                                from: moveStr.substring(0, 2),
-                                to: moveStr.substring(2, 4),
-                                promotion: moveStr.length > 4 ? moveStr.substring(4) : undefined
-                            });
-                        }
-                        setGame(newGame);
-                    } catch (e) {
-                        console.error("PGN replay failed", e);
-                        setGame(new Chess(body.fen));
-                    }
-                } else {
-                    setGame(new Chess(body.fen));
+        // Full reload, on start and whenever a delta is missed
+        const resync = async () => {
+            try {
+                const { data } = await api.get(`/game/${gameId}`);
+                board.current = replayPgn(data.pgn, data.fen);
+                setGame(board.current);
+                applyStatus(data);
+                lastSeq.current = data.plyCount;
+            } catch (e) {
+                console.error("Game snapshot failed", e);
+            }
+        };
+
+        const applyDelta = (body) => {
+            if (lastSeq.current === null) {
+                resync();
+                return;
+            }
+            if (body.lastMove) {
+                if (body.seq <= lastSeq.current) return; // already applied
+                if (body.seq !== lastSeq.current + 1) {
+                    resync();
+                    return;
                 }
+                const next = new Chess(board.current.fen());
+                try {
+                    next.move({
+                        from: body.lastMove.substring(0, 2),
+                        to: body.lastMove.substring(2, 4),
+                        promotion: body.lastMove.length > 4 ? body.lastMove.substring(4) : undefined
+                    });
+                } catch (e) {
+                    resync();
+                    return;
+                }
+                board.current = next;
+                setGame(next);
+                lastSeq.current = body.seq;
+                setLastLog(`${body.san}. Turn: ${body.currentTurn}`);
+            } else if (body.seq !== lastSeq.current) {
+                resync();
+                return;
+            }
+            applyStatus(body);
+        };
 
-                setWhiteTime(body.whiteTimeLeft);
-                setBlackTime(body.blackTimeLeft);
-                setLastLog(`Opponent moved. Turn: ${body.currentTurn}`);
+        const handleGameUpdate = (body) => {
+            console.log("Received:", body);
 
-                if (body.status === 'COMPLETED' || body.status === 'FINISHED') {
-                    setGameOver(true);
-                    setGameResult(body.message || "Game Over");
-                }
+            if (body.type === 'DELTA') {
+                applyDelta(body);
             } else if (body.type === 'GAME_OVER') {
                 setGameOver(true);
-                setGameResult(body.message);
-            } else if (body.type === 'ERROR') {
-                setLastLog(`Error: ${body.status}`);
+                setGameResult(body.statusMessage || body.message);
             }
         };
 
+        // Rejected moves are reported to this session only, not on the game topic
+        const handleError = (body) => {
+            setLastLog(`Error: ${body.statusMessage}`);
+        };
+
+        socketService.routeTo(gameId);
         socketService.connect()
             .then(() => {
                 console.log('Connected to WebSocket');
                 setIsConnected(true);
                 setLastLog("Connected to Game Server");
                 unsubscribe = socketService.subscribe(`/topic/game/${gameId}`, handleGameUpdate);
+                unsubscribeErrors = socketService.subscribe('/user/queue/errors', handleError);
+                resync();
             })
             .catch((error) => {
                 console.error('WebSocket connection error:', error);
@@ -77,6 +136,9 @@ export function useChessGame(gameId = 1) { // Default gameId 1 for Phase 1
             if (unsubscribe) {
                 unsubscribe();
             }
+            if (unsubscribeErrors) {
+                unsubscribeErrors();
+            }
         };
     }, [gameId]);
 
@@ -3,19 +3,30 @@ import SockJS from 'sockjs-client';
 
 const SOCKET_URL = process.env.REACT_APP_SOCKET_URL || 'http://localhost:8080/ws';
 
+// Game the socket is opened for; the gateway routes it to the node owning that game
+let routedGameId = null;
+let deactivation = Promise.resolve();
+
 // Connection state
 let isConnected = false;
 let isConnecting = false;
 let connectionPromise = null;
 const subscriptions = new Map(); // topic -> Set of callbacks
 const activeSubscriptions = new Map(); // topic -> STOMP subscription object
+// Subscriptions use the topic as their id, so the server can send every
+// subscriber of a game the same encoded frame
 
 // Create the STOMP client
 const stompClient = new Client({
-    webSocketFactory: () => new SockJS(SOCKET_URL),
+    webSocketFactory: () => new SockJS(routedGameId ? `${SOCKET_URL}?gameId=${routedGameId}` : SOCKET_URL),
     debug: function (str) {
         console.log('[STOMP]', str);
     },
+    // Authenticates the STOMP session, which /user/queue/... destinations need
+    beforeConnect: () => {
+        const token = localStorage.getItem('token');
+        stompClient.connectHeaders = token ? { Authorization: `Bearer ${token}` } : {};
+    },
     reconnectDelay: 5000,
     heartbeatIncoming: 4000,
     heartbeatOutgoing: 4000,
@@ -33,7 +44,7 @@ stompClient.onConnect = (frame) => {
             const stompSub = stompClient.subscribe(topic, (message) => {
                 const body = JSON.parse(message.body);
                 callbacks.forEach(callback => callback(body));
-            });
+            }, { id: topic });
             activeSubscriptions.set(topic, stompSub);
             console.log('[Socket] Subscribed to:', topic);
         }
@@ -91,12 +102,30 @@ export const socketService = {
                 reject(error);
             };
 
-            stompClient.activate();
+            deactivation.then(() => stompClient.activate());
         });
 
         return connectionPromise;
     },
 
+    /**
+     * Route the connection to the server holding the given game. Reconnects on the
+     * next connect() if the socket is currently open for another game.
+     */
+    routeTo: (gameId) => {
+        if (routedGameId === gameId) {
+            return;
+        }
+        routedGameId = gameId;
+        if (isConnected || isConnecting) {
+            deactivation = stompClient.deactivate();
+            isConnected = false;
+            isConnecting = false;
+            connectionPromise = null;
+            activeSubscriptions.clear();
+        }
+    },
+
     /**
      * Subscribe to a topic. Returns an unsubscribe function.
      * @param {string} topic - The topic to subscribe to (e.g., '/topic/game/123')
@@ -115,7 +144,7 @@ export const socketService = {
             const stompSub = stompClient.subscribe(topic, (message) => {
                 const body = JSON.parse(message.body);
                 subscriptions.get(topic).forEach(cb => cb(body));
-            });
+            }, { id: topic });
             activeSubscriptions.set(topic, stompSub);
             console.log('[Socket] Subscribed to:', topic);
         }